@@ -0,0 +1,113 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Decodes batches of consent strings in parallel. A consent string that fails to decode is
+ * reported by its DecodeResult and does not affect the remaining strings.
+ */
+class BatchDecoder {
+    /**
+     * The number of chunks each worker claims on average, more chunks balance uneven workloads.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private BatchDecoder() {
+    }
+
+    /**
+     * Any runtime exception, including one caused by a null string, is reported by the result so
+     * that it can't abort the batch.
+     */
+    static DecodeResult decodeOne(String consentString, TCStringDecoder decoder) {
+        try {
+            return DecodeResult.success(consentString, decoder.decodeString(consentString));
+        } catch (RuntimeException e) {
+            return DecodeResult.failure(consentString, e);
+        }
+    }
+
+    /**
+     * Decodes the strings on the common fork join pool, the results are in the order of the
+     * strings.
+     */
+    static List<DecodeResult> decodeAll(List<String> consentStrings, TCStringDecoder decoder) {
+        String[] input = consentStrings.toArray(new String[0]);
+        DecodeResult[] results = new DecodeResult[input.length];
+
+        IntStream.range(0, input.length)
+                .parallel()
+                .forEach(i -> results[i] = decodeOne(input[i], decoder));
+
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Decodes the strings on the executor, blocking until all strings are decoded. One task is
+     * submitted per worker and each task repeatedly claims the next chunk of strings until none
+     * remain, so workers that finish early take over remaining work.
+     */
+    static List<DecodeResult> decodeAll(List<String> consentStrings, Executor executor, int workers,
+            TCStringDecoder decoder) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be positive: " + workers);
+        }
+
+        String[] input = consentStrings.toArray(new String[0]);
+        DecodeResult[] results = new DecodeResult[input.length];
+        int chunkSize = Math.max(1, input.length / (workers * CHUNKS_PER_WORKER));
+        AtomicInteger nextChunk = new AtomicInteger();
+
+        Runnable task = () -> {
+            for (int start = nextChunk.getAndAdd(chunkSize); start < input.length;
+                    start = nextChunk.getAndAdd(chunkSize)) {
+                int end = Math.min(input.length, start + chunkSize);
+                for (int i = start; i < end; i++) {
+                    results[i] = decodeOne(input[i], decoder);
+                }
+            }
+        };
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[Math.min(workers, input.length)];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.runAsync(task, executor);
+        }
+        CompletableFuture.allOf(futures).join();
+
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Returns a parallel stream of the results, in the encounter order of the strings.
+     */
+    static Stream<DecodeResult> decodeAll(Stream<String> consentStrings, TCStringDecoder decoder) {
+        return consentStrings.parallel().map(consentString -> decodeOne(consentString, decoder));
+    }
+}
@@ -0,0 +1,102 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Objects;
+
+/**
+ * The outcome of decoding one consent string of a batch, either the decoded TCString or the error
+ * the decode failed with.
+ */
+public final class DecodeResult {
+    private final String consentString;
+    private final TCString tcString;
+    private final RuntimeException error;
+
+    private DecodeResult(String consentString, TCString tcString, RuntimeException error) {
+        this.consentString = consentString;
+        this.tcString = tcString;
+        this.error = error;
+    }
+
+    static DecodeResult success(String consentString, TCString tcString) {
+        return new DecodeResult(consentString, tcString, null);
+    }
+
+    static DecodeResult failure(String consentString, RuntimeException error) {
+        return new DecodeResult(consentString, null, error);
+    }
+
+    public String getConsentString() {
+        return consentString;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Returns the decoded TCString.
+     *
+     * @throws IllegalStateException wrapping the decode error if the decode failed
+     */
+    public TCString getTCString() {
+        if (error != null) {
+            throw new IllegalStateException("consent string failed to decode", error);
+        }
+        return tcString;
+    }
+
+    /**
+     * Returns the decode error or null if the decode succeeded.
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(consentString, tcString, error);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        DecodeResult other = (DecodeResult) obj;
+        return Objects.equals(consentString, other.consentString)
+                && Objects.equals(tcString, other.tcString)
+                && Objects.equals(error, other.error);
+    }
+
+    @Override
+    public String toString() {
+        return "DecodeResult [consentString=" + consentString + ", "
+                + (error == null ? "tcString=" + tcString : "error=" + error) + "]";
+    }
+}
@@ -30,12 +30,12 @@ import static com.iabtcf.utils.FieldDefs.V1_VENDOR_LIST_VERSION;
 import static com.iabtcf.utils.FieldDefs.V1_VERSION;
 
 import java.time.Instant;
-import java.util.Base64;
 import java.util.Objects;
 
 import com.iabtcf.exceptions.ByteParseException;
 import com.iabtcf.exceptions.UnsupportedVersionException;
 import com.iabtcf.utils.BitReader;
+import com.iabtcf.utils.CharSequenceBitReader;
 import com.iabtcf.utils.FieldDefs;
 import com.iabtcf.utils.IntIterable;
 
@@ -51,8 +51,7 @@ public class PPCString {
 
     public static PPCString decode(String consentString)
             throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
-        byte[] bytes = Base64.getUrlDecoder().decode(consentString);
-        return new PPCString(new BitReader(bytes));
+        return new PPCString(new CharSequenceBitReader(consentString));
     }
 
     public int getVersion() {
@@ -0,0 +1,183 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.iabtcf.utils.FieldDefs;
+import com.iabtcf.v2.SegmentType;
+
+/**
+ * The set of fields to decode up front when decoding a v2 consent string. A projection is immutable
+ * and is meant to be created once and reused for every decode.
+ *
+ * Fields are identified by the FieldDefs used by their getter, for example
+ * {@link FieldDefs#CORE_VENDOR_BITRANGE_FIELD} for {@link TCString#getVendorConsent()} and
+ * {@link FieldDefs#CORE_PUB_RESTRICTION_ENTRY} for {@link TCString#getPublisherRestrictions()}.
+ *
+ * Decoding stops after the last projected field of the core segment and only out-of-band segments
+ * containing projected fields are visited. Fields outside of the projection are decoded lazily when
+ * they are accessed.
+ */
+public final class Projection {
+    /**
+     * Decodes all fields up front.
+     */
+    public static final Projection ALL = new Projection(fieldsOf(TCStringV2.CORE_FIELDS, TCStringV2.SEGMENT_FIELDS));
+
+    /**
+     * Decodes no fields up front, equivalent to {@link DecoderOption#LAZY}.
+     */
+    public static final Projection NONE = new Projection(EnumSet.noneOf(FieldDefs.class));
+
+    private final Set<FieldDefs> fields;
+    private final int coreFieldCount;
+    private final Set<SegmentType> segments;
+    private final long mask;
+
+    private Projection(EnumSet<FieldDefs> fields) {
+        int count = 0;
+        for (int i = 0; i < TCStringV2.CORE_FIELDS.length; i++) {
+            if (fields.contains(TCStringV2.CORE_FIELDS[i])) {
+                count = i + 1;
+            }
+        }
+
+        EnumSet<SegmentType> segments = EnumSet.noneOf(SegmentType.class);
+        for (FieldDefs field : fields) {
+            SegmentType segmentType = segmentOf(field);
+            if (segmentType != SegmentType.DEFAULT) {
+                segments.add(segmentType);
+            }
+        }
+
+        this.fields = Collections.unmodifiableSet(fields);
+        this.coreFieldCount = count;
+        this.segments = Collections.unmodifiableSet(segments);
+        this.mask = TCStringV2.maskOf(fields);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a field does not identify a TCString getter
+     */
+    public static Projection of(FieldDefs... fields) {
+        return of(Arrays.asList(fields));
+    }
+
+    /**
+     * @throws IllegalArgumentException if a field does not identify a TCString getter
+     */
+    public static Projection of(Collection<FieldDefs> fields) {
+        EnumSet<FieldDefs> copy = EnumSet.noneOf(FieldDefs.class);
+        for (FieldDefs field : fields) {
+            if (!ALL.contains(field)) {
+                throw new IllegalArgumentException("Field " + field + " does not identify a TCString getter");
+            }
+            copy.add(field);
+        }
+        return new Projection(copy);
+    }
+
+    public boolean contains(FieldDefs field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * Returns the projected fields.
+     */
+    public Set<FieldDefs> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the number of leading core segment fields, in encoding order, that must be visited.
+     */
+    int getCoreFieldCount() {
+        return coreFieldCount;
+    }
+
+    /**
+     * Returns the out-of-band segment types containing projected fields.
+     */
+    Set<SegmentType> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Returns the decoded state bits of the projected fields.
+     */
+    long getMask() {
+        return mask;
+    }
+
+    private static SegmentType segmentOf(FieldDefs field) {
+        switch (field) {
+            case DV_VENDOR_BITRANGE_FIELD:
+                return SegmentType.DISCLOSED_VENDOR;
+            case AV_VENDOR_BITRANGE_FIELD:
+                return SegmentType.ALLOWED_VENDOR;
+            case PPTC_PUB_PURPOSES_CONSENT:
+            case PPTC_PUB_PURPOSES_LI_TRANSPARENCY:
+            case PPTC_CUSTOM_PURPOSES_CONSENT:
+            case PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY:
+                return SegmentType.PUBLISHER_TC;
+            default:
+                return SegmentType.DEFAULT;
+        }
+    }
+
+    private static EnumSet<FieldDefs> fieldsOf(FieldDefs[]... fieldArrays) {
+        EnumSet<FieldDefs> fields = EnumSet.noneOf(FieldDefs.class);
+        for (FieldDefs[] fieldArray : fieldArrays) {
+            fields.addAll(Arrays.asList(fieldArray));
+        }
+        return fields;
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        Projection other = (Projection) obj;
+        return fields.equals(other.fields);
+    }
+
+    @Override
+    public String toString() {
+        return "Projection " + fields;
+    }
+}
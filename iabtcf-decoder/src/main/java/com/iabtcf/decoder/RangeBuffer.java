@@ -0,0 +1,48 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * A global per-thread buffer for the start and end vendor ids of range entries, which are read
+ * before the decoded set can be sized. It is a static cache shared by every decode path on a thread,
+ * eager and lazy, v1 and v2, whatever decoder or TCString instance is involved, and is not owned by
+ * any decoder. The buffer is owned by the caller that obtained it until the caller returns, and
+ * keeps the largest size requested on its thread for the thread's lifetime.
+ */
+final class RangeBuffer {
+    private static final ThreadLocal<RangeBuffer> BUFFER = ThreadLocal.withInitial(RangeBuffer::new);
+
+    private int[] ranges = new int[64];
+
+    private RangeBuffer() {
+    }
+
+    /**
+     * Returns this thread's buffer of at least 'length' ints, the content is undefined.
+     */
+    static int[] get(int length) {
+        RangeBuffer buffer = BUFFER.get();
+        if (buffer.ranges.length < length) {
+            buffer.ranges = new int[Math.max(length, buffer.ranges.length << 1)];
+        }
+        return buffer.ranges;
+    }
+}
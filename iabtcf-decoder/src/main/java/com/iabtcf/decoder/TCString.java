@@ -20,19 +20,25 @@ package com.iabtcf.decoder;
  * #L%
  */
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 import com.iabtcf.exceptions.ByteParseException;
+import com.iabtcf.exceptions.InvalidRangeFieldException;
 import com.iabtcf.exceptions.TCStringDecodeException;
 import com.iabtcf.exceptions.UnsupportedVersionException;
+import com.iabtcf.utils.AsciiCharSequence;
 import com.iabtcf.utils.IntIterable;
 import com.iabtcf.v2.PublisherRestriction;
 
 public interface TCString {
 
     /**
-     * Decodes an iabtcf compliant encoded string.
+     * Decodes an iabtcf compliant encoded string. The returned instance is thread-safe and may be
+     * shared once decoded.
      *
      * @throws ByteParseException if version field failed to parse
      * @throws UnsupportedVersionException invalid version field
@@ -43,6 +49,96 @@ public interface TCString {
         return TCStringDecoder.decode(consentString, options);
     }
 
+    /**
+     * Decodes an iabtcf compliant encoded string, decoding the fields of the projection up front
+     * and the remaining fields lazily. Projections only apply to v2 strings and should be created
+     * once and reused.
+     *
+     * @throws ByteParseException if version field failed to parse
+     * @throws UnsupportedVersionException invalid version field
+     * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
+     */
+    static TCString decode(String consentString, Projection projection)
+            throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
+        return TCStringDecoder.decode(consentString, projection);
+    }
+
+    /**
+     * Decodes an iabtcf compliant encoded string from its ASCII bytes without copying them.
+     *
+     * Fields decoded up front, all fields of a v2 string with the default options, are copied out
+     * of the bytes and are not affected by later changes to them. Lazily decoded v2 fields are read
+     * from the bytes on first access and version 1 strings on every access, the bytes must not change
+     * while such a TCString is in use.
+     *
+     * @throws ByteParseException if version field failed to parse
+     * @throws UnsupportedVersionException invalid version field
+     * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
+     * @throws IndexOutOfBoundsException if 'offset' or 'length' are out of range
+     */
+    static TCString decode(byte[] bytes, int offset, int length, DecoderOption... options)
+            throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
+        return TCStringDecoder.decode(AsciiCharSequence.of(bytes, offset, length), options);
+    }
+
+    /**
+     * Decodes an iabtcf compliant encoded string from the ASCII bytes between the buffer's
+     * position and limit without copying them. The buffer's position is not changed.
+     *
+     * Fields decoded up front, all fields of a v2 string with the default options, are copied out
+     * of the buffer and are not affected by later changes to it. Lazily decoded v2 fields are read
+     * from the buffer on first access and version 1 strings on every access, the buffer's content
+     * must not change while such a TCString is in use.
+     *
+     * @throws ByteParseException if version field failed to parse
+     * @throws UnsupportedVersionException invalid version field
+     * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
+     */
+    static TCString decode(ByteBuffer buffer, DecoderOption... options)
+            throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
+        return TCStringDecoder.decode(AsciiCharSequence.of(buffer), options);
+    }
+
+    /**
+     * Passes the fields of a v2 consent string to the visitor with a single pass over its bits,
+     * without building any TCString values. Fields visited before an error has been detected are
+     * not rolled back.
+     *
+     * @throws ByteParseException if a segment ends before its last field
+     * @throws InvalidRangeFieldException if a range entry is invalid
+     * @throws UnsupportedVersionException if the consent string is not a v2 string
+     * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
+     */
+    static void accept(CharSequence consentString, TCStringVisitor visitor)
+            throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
+        TCStringWalker.accept(consentString, visitor);
+    }
+
+    /**
+     * Decodes the consent strings in parallel on the common fork join pool. The results are in the
+     * order of the consent strings, a string that fails to decode is reported by its result.
+     */
+    static List<DecodeResult> decodeAll(List<String> consentStrings) {
+        return TCStringDecoder.newBuilder().build().decodeAll(consentStrings);
+    }
+
+    /**
+     * Decodes the consent strings in parallel with one task per available processor submitted to
+     * the executor, blocking until all strings are decoded. The results are in the order of the
+     * consent strings, a string that fails to decode is reported by its result.
+     */
+    static List<DecodeResult> decodeAll(List<String> consentStrings, Executor executor) {
+        return TCStringDecoder.newBuilder().build().decodeAll(consentStrings, executor);
+    }
+
+    /**
+     * Returns a parallel stream decoding the consent strings. The results are in the encounter
+     * order of the consent strings, a string that fails to decode is reported by its result.
+     */
+    static Stream<DecodeResult> decodeAll(Stream<String> consentStrings) {
+        return TCStringDecoder.newBuilder().build().decodeAll(consentStrings);
+    }
+
     /**
      * Version number of the encoding format
      *
@@ -0,0 +1,291 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.iabtcf.exceptions.ByteParseException;
+import com.iabtcf.exceptions.UnsupportedVersionException;
+
+/**
+ * A bounded cache of decoded TC strings keyed by the consent string.
+ *
+ * The cache is split into independently locked segments, each evicting its least recently used
+ * entry when full. Entries optionally expire once their {@link TCString#getLastUpdated()} is older
+ * than a maximum age, consent strings that are already expired are decoded but not cached. Decoded
+ * instances are thread-safe and may be shared by all callers.
+ */
+public final class TCStringCache {
+    private final Segment[] segments;
+    private final TCStringDecoder decoder;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private TCStringCache(Builder builder) {
+        // at most one segment per entry, the segment capacities add up to maximumSize
+        int segmentCount = 1;
+        while (segmentCount < builder.concurrencyLevel && segmentCount <= builder.maximumSize >>> 1) {
+            segmentCount <<= 1;
+        }
+
+        int capacity = builder.maximumSize / segmentCount;
+        int remainder = builder.maximumSize % segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(i < remainder ? capacity + 1 : capacity);
+        }
+
+        this.decoder = builder.decoder.build();
+        this.maxAge = builder.maxAge;
+        this.clock = builder.clock;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the cached TCString for the consent string, decoding and caching it on a miss. Strings
+     * that fail to decode are not cached.
+     *
+     * @throws ByteParseException if version field failed to parse
+     * @throws UnsupportedVersionException invalid version field
+     * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
+     */
+    public TCString get(String consentString)
+            throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
+        Segment segment = segmentFor(consentString);
+
+        TCString tcString = segment.get(consentString);
+        if (tcString != null) {
+            if (!isExpired(tcString)) {
+                hits.increment();
+                return tcString;
+            }
+
+            if (segment.remove(consentString, tcString)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        tcString = decoder.decodeString(consentString);
+        if (!isExpired(tcString)) {
+            segment.put(consentString, tcString);
+        }
+        return tcString;
+    }
+
+    /**
+     * Returns the cached TCString for the consent string or null.
+     */
+    public TCString getIfPresent(String consentString) {
+        Segment segment = segmentFor(consentString);
+
+        TCString tcString = segment.get(consentString);
+        if (tcString != null && isExpired(tcString)) {
+            if (segment.remove(consentString, tcString)) {
+                evictions.increment();
+            }
+            return null;
+        }
+        return tcString;
+    }
+
+    public void invalidate(String consentString) {
+        segmentFor(consentString).remove(consentString);
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached entries, including expired entries that have not been removed
+     * yet.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries removed because the cache was full or because they expired.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private boolean isExpired(TCString tcString) {
+        return maxAge != null && tcString.getLastUpdated().plus(maxAge).isBefore(clock.instant());
+    }
+
+    private Segment segmentFor(String consentString) {
+        int h = consentString.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * An access ordered map, all operations are guarded by the segment's monitor.
+     */
+    private final class Segment {
+        private final Map<String, TCString> map;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<String, TCString>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TCString> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized TCString get(String key) {
+            return map.get(key);
+        }
+
+        synchronized void put(String key, TCString value) {
+            map.put(key, value);
+        }
+
+        synchronized boolean remove(String key, TCString value) {
+            return map.remove(key, value);
+        }
+
+        synchronized void remove(String key) {
+            map.remove(key);
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+
+    public static final class Builder {
+        private int maximumSize = 10_000;
+        private int concurrencyLevel = 16;
+        private Duration maxAge = null;
+        private final TCStringDecoder.Builder decoder = TCStringDecoder.newBuilder();
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {
+        }
+
+        /**
+         * The maximum number of cached entries. The bound is split between the segments, a segment
+         * evicts when it is full even if other segments have room.
+         *
+         * @throws IllegalArgumentException if maximumSize is not positive
+         */
+        public Builder maximumSize(int maximumSize) {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * The expected number of concurrently accessing threads, which determines the number of
+         * independently locked segments.
+         *
+         * @throws IllegalArgumentException if concurrencyLevel is not positive
+         */
+        public Builder concurrencyLevel(int concurrencyLevel) {
+            if (concurrencyLevel <= 0) {
+                throw new IllegalArgumentException("concurrencyLevel must be positive: " + concurrencyLevel);
+            }
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        /**
+         * Expires entries once their {@link TCString#getLastUpdated()} is older than maxAge.
+         *
+         * @throws IllegalArgumentException if maxAge is negative
+         */
+        public Builder expireAfterLastUpdated(Duration maxAge) {
+            if (maxAge.isNegative()) {
+                throw new IllegalArgumentException("maxAge must not be negative: " + maxAge);
+            }
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * The fields decoded up front when a consent string is decoded, defaults to all fields.
+         */
+        public Builder projection(Projection projection) {
+            decoder.projection(projection);
+            return this;
+        }
+
+        /**
+         * Shares identical vendor sets between the cached TC strings, the interner may be shared
+         * with other caches.
+         */
+        public Builder vendorSetInterner(VendorSetInterner interner) {
+            decoder.vendorSetInterner(interner);
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = Objects.requireNonNull(clock);
+            return this;
+        }
+
+        public TCStringCache build() {
+            return new TCStringCache(this);
+        }
+    }
+}
@@ -20,22 +20,116 @@ package com.iabtcf.decoder;
  * #L%
  */
 
-import java.util.Base64;
-import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 import com.iabtcf.exceptions.ByteParseException;
 import com.iabtcf.exceptions.UnsupportedVersionException;
 import com.iabtcf.utils.BitReader;
+import com.iabtcf.utils.CharSequenceBitReader;
 import com.iabtcf.utils.FieldDefs;
 
-class TCStringDecoder {
-    static BitReader vectorFromString(String base64UrlEncodedString) {
-        // SegmentInputStream sis = new SegmentInputStream(base64UrlEncodedString, 0);
-        // InputStream is = DECODER.wrap(sis);
-        //
-        //
-        byte[] bytes = Base64.getUrlDecoder().decode(base64UrlEncodedString);
-        return new BitReader(bytes);
+/**
+ * Decodes consent strings. Besides the static methods, a decoder may be configured once with
+ * {@link #newBuilder()} and reused for every decode, its options are resolved up front. Instances
+ * are immutable and thread-safe.
+ *
+ * Decoders hold no scratch space of their own. Range encoded vendor sections are read through a
+ * global per-thread buffer shared by all decode paths, including the lazy getters of decoded
+ * instances, so a thread keeps the buffer for its largest range for as long as it lives.
+ */
+public final class TCStringDecoder {
+    private final Projection projection;
+    private final VendorSetInterner interner;
+
+    private TCStringDecoder(Builder builder) {
+        this.projection = builder.projection;
+        this.interner = builder.interner;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Decodes the consent string with the options of this decoder.
+     *
+     * @throws ByteParseException if version field failed to parse
+     * @throws UnsupportedVersionException invalid version field
+     * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
+     */
+    public TCString decodeString(CharSequence consentString)
+            throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
+        return decode(consentString, projection, interner);
+    }
+
+    /**
+     * Decodes the consent strings with the options of this decoder in parallel on the common fork
+     * join pool. The results are in the order of the consent strings, a string that fails to decode
+     * is reported by its result.
+     */
+    public List<DecodeResult> decodeAll(List<String> consentStrings) {
+        return BatchDecoder.decodeAll(consentStrings, this);
+    }
+
+    /**
+     * Decodes the consent strings with the options of this decoder in parallel with one task per
+     * available processor submitted to the executor, blocking until all strings are decoded. The
+     * results are in the order of the consent strings, a string that fails to decode is reported by
+     * its result.
+     */
+    public List<DecodeResult> decodeAll(List<String> consentStrings, Executor executor) {
+        return BatchDecoder.decodeAll(consentStrings, executor, Runtime.getRuntime().availableProcessors(), this);
+    }
+
+    /**
+     * Returns a parallel stream decoding the consent strings with the options of this decoder. The
+     * results are in the encounter order of the consent strings, a string that fails to decode is
+     * reported by its result.
+     */
+    public Stream<DecodeResult> decodeAll(Stream<String> consentStrings) {
+        return BatchDecoder.decodeAll(consentStrings, this);
+    }
+
+    /**
+     * Returns the index of the '.' terminating the segment starting at 'start' or the length of the
+     * string if it's the last segment.
+     */
+    static int segmentEnd(CharSequence consentString, int start) {
+        int end = start;
+        while (end < consentString.length() && consentString.charAt(end) != '.') {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Returns a BitReader for each segment following the segment that ended at 'coreEnd'. As with
+     * {@link String#split(String)}, trailing empty segments are discarded.
+     */
+    static BitReader[] remainingVectors(CharSequence consentString, int coreEnd) {
+        int last = consentString.length();
+        while (last > coreEnd && consentString.charAt(last - 1) == '.') {
+            last--;
+        }
+
+        int count = 0;
+        for (int i = coreEnd; i < last; i++) {
+            if (consentString.charAt(i) == '.') {
+                count++;
+            }
+        }
+
+        BitReader[] remaining = new BitReader[count];
+        int start = coreEnd + 1;
+        for (int i = 0; i < count; i++) {
+            int end = segmentEnd(consentString, start);
+            remaining[i] = new CharSequenceBitReader(consentString, start, end);
+            start = end + 1;
+        }
+        return remaining;
     }
 
     /**
@@ -45,16 +139,43 @@ class TCStringDecoder {
      * @throws UnsupportedVersionException invalid version field
      * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
      */
-    public static TCString decode(String consentString, DecoderOption... options)
+    public static TCString decode(CharSequence consentString, DecoderOption... options)
             throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
-        EnumSet<DecoderOption> optSet = EnumSet.noneOf(DecoderOption.class);
+        Projection projection = Projection.ALL;
         for (DecoderOption opt : options) {
-            optSet.add(opt);
+            if (opt == DecoderOption.LAZY) {
+                projection = Projection.NONE;
+            }
         }
 
-        String[] split = consentString.split("\\.");
-        String base64UrlEncodedString = split[0];
-        BitReader bitVector = vectorFromString(base64UrlEncodedString);
+        return decode(consentString, projection);
+    }
+
+    /**
+     * Decodes the consent string, decoding the fields of the projection up front. The projection
+     * only applies to v2 consent strings.
+     *
+     * @throws ByteParseException if version field failed to parse
+     * @throws UnsupportedVersionException invalid version field
+     * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
+     */
+    public static TCString decode(CharSequence consentString, Projection projection)
+            throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
+        return decode(consentString, projection, null);
+    }
+
+    /**
+     * Decodes the consent string, decoding the fields of the projection up front and sharing v2
+     * vendor sets through the interner when it's not null.
+     *
+     * @throws ByteParseException if version field failed to parse
+     * @throws UnsupportedVersionException invalid version field
+     * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
+     */
+    static TCString decode(CharSequence consentString, Projection projection, VendorSetInterner interner)
+            throws IllegalArgumentException, ByteParseException, UnsupportedVersionException {
+        int coreEnd = segmentEnd(consentString, 0);
+        BitReader bitVector = new CharSequenceBitReader(consentString, 0, coreEnd);
 
         int version = bitVector.readBits6(FieldDefs.CORE_VERSION);
 
@@ -62,24 +183,38 @@ class TCStringDecoder {
             case 1:
                 return TCStringV1.fromBitVector(bitVector);
             case 2:
-                TCString tcString = null;
-                if (split.length > 1) {
-                    BitReader[] remaining = new BitReader[split.length - 1];
-                    for (int i = 1; i < split.length; i++) {
-                        remaining[i - 1] = vectorFromString(split[i]);
-                    }
-                    tcString = TCStringV2.fromBitVector(bitVector, remaining);
-                } else {
-                    tcString = TCStringV2.fromBitVector(bitVector);
-                }
-
-                if (!optSet.contains(DecoderOption.LAZY)) {
-                    tcString.hashCode();
-                }
-
-                return tcString;
+                return TCStringV2.fromBitVector(projection, interner, bitVector,
+                        remainingVectors(consentString, coreEnd));
             default:
                 throw new UnsupportedVersionException("Version " + version + "is unsupported yet");
         }
     }
+
+    public static final class Builder {
+        private Projection projection = Projection.ALL;
+        private VendorSetInterner interner = null;
+
+        private Builder() {
+        }
+
+        /**
+         * The fields decoded up front, defaults to all fields. Only applies to v2 consent strings.
+         */
+        public Builder projection(Projection projection) {
+            this.projection = Objects.requireNonNull(projection);
+            return this;
+        }
+
+        /**
+         * Shares identical vendor sets between the decoded TC strings.
+         */
+        public Builder vendorSetInterner(VendorSetInterner interner) {
+            this.interner = Objects.requireNonNull(interner);
+            return this;
+        }
+
+        public TCStringDecoder build() {
+            return new TCStringDecoder(this);
+        }
+    }
 }
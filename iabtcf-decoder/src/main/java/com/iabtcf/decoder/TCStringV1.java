@@ -33,16 +33,15 @@ import static com.iabtcf.utils.FieldDefs.V1_VENDOR_MAX_VENDOR_ID;
 import static com.iabtcf.utils.FieldDefs.V1_VERSION;
 
 import java.time.Instant;
-import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
 import com.iabtcf.exceptions.InvalidRangeFieldException;
+import com.iabtcf.utils.BitFieldIntIterable;
 import com.iabtcf.utils.BitReader;
-import com.iabtcf.utils.BitSetIntIterable;
 import com.iabtcf.utils.FieldDefs;
 import com.iabtcf.utils.IntIterable;
+import com.iabtcf.utils.WordIntIterable;
 import com.iabtcf.v2.PublisherRestriction;
 
 class TCStringV1 implements TCString {
@@ -192,29 +191,30 @@ class TCStringV1 implements TCString {
      * @throws InvalidRangeFieldException
      */
     private IntIterable fillVendorsV1(BitReader bbv, FieldDefs maxVendor, FieldDefs vendorField) {
-        BitSet bs = new BitSet();
-
         int maxV = bbv.readBits16(maxVendor);
         boolean isRangeEncoding = bbv.readBits1(maxVendor.getEnd(bbv));
 
         if (isRangeEncoding) {
             boolean defaultConsent = bbv.readBits1(FieldDefs.V1_VENDOR_DEFAULT_CONSENT);
-            TCStringV2.vendorIdsFromRange(bbv, bs, FieldDefs.V1_VENDOR_NUM_ENTRIES.getOffset(bbv),
-                    Optional.of(maxVendor));
-
+            int numberOfVendorEntriesOffset = FieldDefs.V1_VENDOR_NUM_ENTRIES.getOffset(bbv);
+            int numberOfVendorEntries = bbv.readBits12(numberOfVendorEntriesOffset);
+            int[] ranges = RangeBuffer.get(numberOfVendorEntries << 1);
+            // single entries are not bounded by the max vendor id, size the set for the greatest id
+            int maxVendorId = TCStringV2.readRanges(bbv, ranges, numberOfVendorEntriesOffset, maxV);
+
+            WordIntIterable.Builder builder = WordIntIterable.newBuilder(Math.max(maxV, maxVendorId));
+            for (int i = 0; i < numberOfVendorEntries << 1; i += 2) {
+                builder.add(ranges[i], ranges[i + 1] + 1);
+            }
             if (defaultConsent) {
-                bs.flip(1, maxV + 1);
+                builder.flip(1, maxV + 1);
             }
+            return builder.build();
+        } else if (bbv.isImmutable()) {
+            return BitFieldIntIterable.of(bbv, vendorField.getOffset(bbv), maxV);
         } else {
-            for (int i = 0; i < maxV; i++) {
-                boolean hasVendorConsent = bbv.readBits1(vendorField.getOffset(bbv) + i);
-                if (hasVendorConsent) {
-                    bs.set(i + 1);
-                }
-            }
+            return TCStringV2.readBitField(bbv, vendorField.getOffset(bbv), maxV);
         }
-
-        return BitSetIntIterable.from(bs);
     }
 
     @Override
@@ -51,27 +51,90 @@ import static com.iabtcf.utils.FieldDefs.PPTC_CUSTOM_PURPOSES_CONSENT;
 import static com.iabtcf.utils.FieldDefs.PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY;
 import static com.iabtcf.utils.FieldDefs.PPTC_PUB_PURPOSES_CONSENT;
 import static com.iabtcf.utils.FieldDefs.PPTC_PUB_PURPOSES_LI_TRANSPARENCY;
+import static com.iabtcf.utils.FieldDefs.START_OR_ONLY_VENDOR_ID;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import com.iabtcf.exceptions.InvalidRangeFieldException;
+import com.iabtcf.utils.BitFieldIntIterable;
 import com.iabtcf.utils.BitReader;
-import com.iabtcf.utils.BitSetIntIterable;
 import com.iabtcf.utils.FieldDefs;
 import com.iabtcf.utils.IntIterable;
+import com.iabtcf.utils.RangeIntIterable;
+import com.iabtcf.utils.WordIntIterable;
 import com.iabtcf.v2.PublisherRestriction;
 import com.iabtcf.v2.RestrictionType;
 import com.iabtcf.v2.SegmentType;
 
+/**
+ * A v2 TCString. Fields are either decoded up front or lazily on first access. Instances are
+ * thread-safe, a lazily decoded field is assigned once its value is complete and then published by
+ * atomically setting its decoded bit. Threads racing on the same field decode the same immutable
+ * value.
+ */
 class TCStringV2 implements TCString {
+    /**
+     * The core segment fields in encoding order, each identified by the FieldDefs used by its getter.
+     */
+    static final FieldDefs[] CORE_FIELDS = {
+            CORE_VERSION,
+            CORE_CREATED,
+            CORE_LAST_UPDATED,
+            CORE_CMP_ID,
+            CORE_CMP_VERSION,
+            CORE_CONSENT_SCREEN,
+            CORE_CONSENT_LANGUAGE,
+            CORE_VENDOR_LIST_VERSION,
+            CORE_TCF_POLICY_VERSION,
+            CORE_IS_SERVICE_SPECIFIC,
+            CORE_USE_NON_STANDARD_STOCKS,
+            CORE_SPECIAL_FEATURE_OPT_INS,
+            CORE_PURPOSES_CONSENT,
+            CORE_PURPOSES_LI_TRANSPARENCY,
+            CORE_PURPOSE_ONE_TREATMENT,
+            CORE_PUBLISHER_CC,
+            CORE_VENDOR_BITRANGE_FIELD,
+            CORE_VENDOR_LI_BITRANGE_FIELD,
+            CORE_PUB_RESTRICTION_ENTRY
+    };
+
+    /**
+     * The out-of-band segment fields, each identified by the FieldDefs used by its getter.
+     */
+    static final FieldDefs[] SEGMENT_FIELDS = {
+            DV_VENDOR_BITRANGE_FIELD,
+            AV_VENDOR_BITRANGE_FIELD,
+            PPTC_PUB_PURPOSES_CONSENT,
+            PPTC_PUB_PURPOSES_LI_TRANSPARENCY,
+            PPTC_CUSTOM_PURPOSES_CONSENT,
+            PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY
+    };
+
+    /**
+     * The decoded state bit of each field, indexed by FieldDefs ordinal.
+     */
+    private static final long[] FIELD_BITS = new long[FieldDefs.values().length];
+
+    static {
+        int bit = 0;
+        for (FieldDefs field : CORE_FIELDS) {
+            FIELD_BITS[field.ordinal()] = 1L << bit++;
+        }
+        for (FieldDefs field : SEGMENT_FIELDS) {
+            FIELD_BITS[field.ordinal()] = 1L << bit++;
+        }
+    }
+
+    private static final AtomicLongFieldUpdater<TCStringV2> DECODED =
+            AtomicLongFieldUpdater.newUpdater(TCStringV2.class, "decoded");
 
     private int version;
     private Instant consentRecordCreated;
@@ -99,23 +162,266 @@ class TCStringV2 implements TCString {
     private IntIterable customPurposesConsent;
     private IntIterable customPurposesLITransparency;
 
-    private final EnumSet<FieldDefs> cache = EnumSet.noneOf(FieldDefs.class);
+    /**
+     * A bit per field, see FIELD_BITS, that is set once the field has been decoded and assigned.
+     */
+    private volatile long decoded;
     private final BitReader bbv;
     private final Collection<BitReader> remainingVectors;
+    private final VendorSetInterner interner;
 
     private TCStringV2(BitReader bbv) {
         this(bbv, new BitReader[] {});
     }
 
     private TCStringV2(BitReader bbv, BitReader... theRest) {
+        this(null, bbv, theRest);
+    }
+
+    private TCStringV2(VendorSetInterner interner, BitReader bbv, BitReader... theRest) {
         this.bbv = bbv;
         this.remainingVectors = Arrays.asList(theRest);
+        this.interner = interner;
     }
 
     public static TCStringV2 fromBitVector(BitReader coreBitVector, BitReader... remainingVectors) {
         return new TCStringV2(coreBitVector, remainingVectors);
     }
 
+    /**
+     * Decodes the fields of the projection with a single sequential pass over the core segment,
+     * stopping after the last projected core field, and over the out-of-band segments that contain
+     * projected fields. The remaining fields are decoded lazily.
+     *
+     * @throws InvalidRangeFieldException
+     */
+    static TCStringV2 fromBitVector(Projection projection, BitReader coreBitVector, BitReader... remainingVectors) {
+        return fromBitVector(projection, null, coreBitVector, remainingVectors);
+    }
+
+    /**
+     * As {@link #fromBitVector(Projection, BitReader, BitReader...)}, vendor sets are shared through
+     * the interner when it's not null.
+     *
+     * @throws InvalidRangeFieldException
+     */
+    static TCStringV2 fromBitVector(Projection projection, VendorSetInterner interner, BitReader coreBitVector,
+            BitReader... remainingVectors) {
+        TCStringV2 tcString = new TCStringV2(interner, coreBitVector, remainingVectors);
+        tcString.decodeCore(new Cursor(coreBitVector, 0), projection);
+        tcString.decodeSegments(projection);
+        tcString.decoded = projection.getMask();
+        return tcString;
+    }
+
+    /**
+     * @throws InvalidRangeFieldException
+     */
+    private void decodeCore(Cursor c, Projection projection) {
+        for (int i = 0; i < projection.getCoreFieldCount(); i++) {
+            FieldDefs field = CORE_FIELDS[i];
+            if (projection.contains(field)) {
+                readCoreField(c, field);
+            } else {
+                skipCoreField(c, field);
+            }
+        }
+    }
+
+    /**
+     * @throws InvalidRangeFieldException
+     */
+    private void readCoreField(Cursor c, FieldDefs field) {
+        switch (field) {
+            case CORE_VERSION:
+                version = c.readBits6();
+                break;
+            case CORE_CREATED:
+                consentRecordCreated = Instant.ofEpochMilli(c.readBits36() * 100);
+                break;
+            case CORE_LAST_UPDATED:
+                consentRecordLastUpdated = Instant.ofEpochMilli(c.readBits36() * 100);
+                break;
+            case CORE_CMP_ID:
+                consentManagerProviderId = (short) c.readBits12();
+                break;
+            case CORE_CMP_VERSION:
+                consentManagerProviderVersion = (short) c.readBits12();
+                break;
+            case CORE_CONSENT_SCREEN:
+                consentScreen = c.readBits6();
+                break;
+            case CORE_CONSENT_LANGUAGE:
+                consentLanguage = c.readStr2();
+                break;
+            case CORE_VENDOR_LIST_VERSION:
+                vendorListVersion = (short) c.readBits12();
+                break;
+            case CORE_TCF_POLICY_VERSION:
+                policyVersion = c.readBits6();
+                break;
+            case CORE_IS_SERVICE_SPECIFIC:
+                isServiceSpecific = c.readBits1();
+                break;
+            case CORE_USE_NON_STANDARD_STOCKS:
+                useNonStandardStacks = c.readBits1();
+                break;
+            case CORE_SPECIAL_FEATURE_OPT_INS:
+                specialFeaturesOptInts = c.readBitSet(CORE_SPECIAL_FEATURE_OPT_INS.getLength());
+                break;
+            case CORE_PURPOSES_CONSENT:
+                purposesConsent = c.readBitSet(CORE_PURPOSES_CONSENT.getLength());
+                break;
+            case CORE_PURPOSES_LI_TRANSPARENCY:
+                purposesLITransparency = c.readBitSet(CORE_PURPOSES_LI_TRANSPARENCY.getLength());
+                break;
+            case CORE_PURPOSE_ONE_TREATMENT:
+                isPurposeOneTreatment = c.readBits1();
+                break;
+            case CORE_PUBLISHER_CC:
+                publisherCountryCode = c.readStr2();
+                break;
+            case CORE_VENDOR_BITRANGE_FIELD:
+                vendorConsents = readVendors(c);
+                break;
+            case CORE_VENDOR_LI_BITRANGE_FIELD:
+                vendorLegitimateInterests = readVendors(c);
+                break;
+            case CORE_PUB_RESTRICTION_ENTRY:
+                List<PublisherRestriction> restrictions = new ArrayList<>();
+                c.offset = fillPublisherRestrictions(restrictions, c.offset, c.bbv);
+                publisherRestrictions = Collections.unmodifiableList(restrictions);
+                break;
+            default:
+                throw new IllegalArgumentException("Not a core field: " + field);
+        }
+    }
+
+    /**
+     * @throws InvalidRangeFieldException
+     */
+    private static void skipCoreField(Cursor c, FieldDefs field) {
+        switch (field) {
+            case CORE_VENDOR_BITRANGE_FIELD:
+            case CORE_VENDOR_LI_BITRANGE_FIELD:
+                c.skipVendors();
+                break;
+            case CORE_PUB_RESTRICTION_ENTRY:
+                // the last core field, never skipped
+                throw new IllegalArgumentException("Can't skip field: " + field);
+            default:
+                c.skip(field.getLength());
+                break;
+        }
+    }
+
+    /**
+     * Decodes the projected fields of the first segment of each type, other segments are ignored as
+     * with {@link #getSegment(SegmentType)}. Segments are no longer visited once all projected
+     * segment types have been found.
+     *
+     * @throws InvalidRangeFieldException
+     */
+    private void decodeSegments(Projection projection) {
+        disclosedVendors = WordIntIterable.EMPTY;
+        allowedVendors = WordIntIterable.EMPTY;
+        publisherPurposesConsent = WordIntIterable.EMPTY;
+        publisherPurposesLITransparency = WordIntIterable.EMPTY;
+        customPurposesConsent = WordIntIterable.EMPTY;
+        customPurposesLITransparency = WordIntIterable.EMPTY;
+
+        if (projection.getSegments().isEmpty()) {
+            return;
+        }
+
+        EnumSet<SegmentType> remaining = EnumSet.copyOf(projection.getSegments());
+        for (BitReader rbbv : remainingVectors) {
+            Cursor c = new Cursor(rbbv, 0);
+            SegmentType segmentType = SegmentType.from(c.readBits3());
+            if (!remaining.remove(segmentType)) {
+                continue;
+            }
+
+            switch (segmentType) {
+                case DISCLOSED_VENDOR:
+                    disclosedVendors = readVendors(c);
+                    break;
+                case ALLOWED_VENDOR:
+                    allowedVendors = readVendors(c);
+                    break;
+                case PUBLISHER_TC:
+                    decodePublisherTC(c, projection);
+                    break;
+                default:
+                    break;
+            }
+
+            if (remaining.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private void decodePublisherTC(Cursor c, Projection projection) {
+        int length = PPTC_PUB_PURPOSES_CONSENT.getLength();
+        if (projection.contains(PPTC_PUB_PURPOSES_CONSENT)) {
+            publisherPurposesConsent = c.readBitSet(length);
+        } else {
+            c.skip(length);
+        }
+
+        length = PPTC_PUB_PURPOSES_LI_TRANSPARENCY.getLength();
+        if (projection.contains(PPTC_PUB_PURPOSES_LI_TRANSPARENCY)) {
+            publisherPurposesLITransparency = c.readBitSet(length);
+        } else {
+            c.skip(length);
+        }
+
+        boolean customConsent = projection.contains(PPTC_CUSTOM_PURPOSES_CONSENT);
+        boolean customLITransparency = projection.contains(PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY);
+        if (!customConsent && !customLITransparency) {
+            return;
+        }
+
+        length = c.readBits6();
+        if (customConsent) {
+            customPurposesConsent = c.readBitSet(length);
+        } else {
+            c.skip(length);
+        }
+
+        if (customLITransparency) {
+            customPurposesLITransparency = c.readBitSet(length);
+        }
+    }
+
+    /**
+     * Returns the decoded state bits of the fields.
+     */
+    static long maskOf(Collection<FieldDefs> fields) {
+        long mask = 0;
+        for (FieldDefs field : fields) {
+            mask |= FIELD_BITS[field.ordinal()];
+        }
+        return mask;
+    }
+
+    private boolean isDecoded(FieldDefs field) {
+        return (decoded & FIELD_BITS[field.ordinal()]) != 0;
+    }
+
+    /**
+     * Must be called after the field's value has been assigned so that the volatile write publishes
+     * it. The bit is set atomically so that concurrently decoded fields are not lost.
+     */
+    private void markDecoded(FieldDefs field) {
+        long bit = FIELD_BITS[field.ordinal()];
+        long current;
+        do {
+            current = decoded;
+        } while ((current & bit) == 0 && !DECODED.compareAndSet(this, current, current | bit));
+    }
+
     private BitReader getSegment(SegmentType segmentType) {
         if (segmentType == SegmentType.DEFAULT) {
             return bbv;
@@ -132,83 +438,177 @@ class TCStringV2 implements TCString {
 
     @Override
     public IntIterable getPubPurposesConsent() {
-        if (cache.add(PPTC_PUB_PURPOSES_CONSENT)) {
-            publisherPurposesConsent = BitSetIntIterable.EMPTY;
-
+        if (!isDecoded(PPTC_PUB_PURPOSES_CONSENT)) {
+            IntIterable value = WordIntIterable.EMPTY;
             BitReader dvBbv = getSegment(SegmentType.PUBLISHER_TC);
             if (dvBbv != null) {
-                publisherPurposesConsent = fillBitSet(dvBbv, PPTC_PUB_PURPOSES_CONSENT);
+                value = fillBitSet(dvBbv, PPTC_PUB_PURPOSES_CONSENT);
             }
+            publisherPurposesConsent = value;
+            markDecoded(PPTC_PUB_PURPOSES_CONSENT);
         }
         return publisherPurposesConsent;
     }
 
     /**
+     * Reads a lazily decoded vendor section. A bitfield is returned as a view of the reader only when
+     * the reader's bits can't change, as the view reads them on every {@link IntIterable#contains(int)}.
+     *
      * @throws InvalidRangeFieldException
      */
-    static BitSetIntIterable fillVendors(BitReader bbv, FieldDefs maxVendor, FieldDefs vendorField) {
-        BitSet bs = new BitSet();
-
+    static IntIterable fillVendors(BitReader bbv, FieldDefs maxVendor, FieldDefs vendorField) {
         int maxV = bbv.readBits16(maxVendor);
         boolean isRangeEncoding = bbv.readBits1(maxVendor.getEnd(bbv));
 
         if (isRangeEncoding) {
-            vendorIdsFromRange(bbv, bs, vendorField, Optional.of(maxVendor));
+            return vendorIdsFromRange(bbv, vendorField.getOffset(bbv), maxV);
+        } else if (bbv.isImmutable()) {
+            return BitFieldIntIterable.of(bbv, vendorField.getOffset(bbv), maxV);
         } else {
-            for (int i = 0; i < maxV; i++) {
-                boolean hasVendorConsent = bbv.readBits1(vendorField.getOffset(bbv) + i);
-                if (hasVendorConsent) {
-                    bs.set(i + 1);
-                }
+            return readBitField(bbv, vendorField.getOffset(bbv), maxV);
+        }
+    }
+
+    /**
+     * Returns the vendor ids of this range entry. The ids are kept as ranges when there are fewer
+     * entries than words in the equivalent bitfield, a range taking the space of a single word.
+     *
+     * @throws InvalidRangeFieldException
+     */
+    static IntIterable vendorIdsFromRange(BitReader bbv, int numberOfVendorEntriesOffset, int maxV) {
+        int numberOfVendorEntries = bbv.readBits12(numberOfVendorEntriesOffset);
+        int[] ranges = RangeBuffer.get(numberOfVendorEntries << 1);
+        int maxVendorId = readRanges(bbv, ranges, numberOfVendorEntriesOffset, maxV);
+        int size = numberOfVendorEntries << 1;
+
+        if (numberOfVendorEntries < (maxVendorId >>> 6) + 1) {
+            RangeIntIterable.Builder builder = RangeIntIterable.newBuilder(numberOfVendorEntries);
+            for (int i = 0; i < size; i += 2) {
+                builder.add(ranges[i], ranges[i + 1] + 1);
             }
+            return builder.build();
         }
-        return BitSetIntIterable.from(bs);
+
+        WordIntIterable.Builder builder = WordIntIterable.newBuilder(maxVendorId);
+        for (int i = 0; i < size; i += 2) {
+            builder.add(ranges[i], ranges[i + 1] + 1);
+        }
+        return builder.build();
     }
 
     /**
-     * Returns the offset following this range entry
+     * Checks a range entry from 'startVendorId' to 'endVendorId' inclusive of a range whose max
+     * vendor id is 'maxV'.
+     *
+     * @throws InvalidRangeFieldException
+     */
+    static void checkRangeEntry(int startVendorId, int endVendorId, int maxV) {
+        if (startVendorId > endVendorId) {
+            throw new InvalidRangeFieldException(String.format(
+                    "start vendor id (%d) is greater than endVendorId (%d)", startVendorId, endVendorId));
+        }
+
+        if (endVendorId > maxV) {
+            throw new InvalidRangeFieldException(
+                    String.format("end vendor id (%d) is greater than max (%d)", endVendorId, maxV));
+        }
+    }
+
+    /**
+     * Reads the entries of this range into 'ranges' as pairs of start and inclusive end vendor ids
+     * and returns the greatest vendor id, so that the vendor ids can be collected into a set of the
+     * exact size.
      *
      * @throws InvalidRangeFieldException
      */
-    static int vendorIdsFromRange(BitReader bbv, BitSet bs, int numberOfVendorEntriesOffset,
-            Optional<FieldDefs> maxVendor) {
+    static int readRanges(BitReader bbv, int[] ranges, int numberOfVendorEntriesOffset, int maxV) {
         int numberOfVendorEntries = bbv.readBits12(numberOfVendorEntriesOffset);
         int offset = numberOfVendorEntriesOffset + FieldDefs.NUM_ENTRIES.getLength(bbv);
-        int maxV = maxVendor.map(maxVF -> bbv.readBits16(maxVF)).orElse(Integer.MAX_VALUE);
+        int max = 0;
 
         for (int j = 0; j < numberOfVendorEntries; j++) {
             boolean isRangeEntry = bbv.readBits1(offset++);
             int startOrOnlyVendorId = bbv.readBits16(offset);
             offset += FieldDefs.START_OR_ONLY_VENDOR_ID.getLength(bbv);
+            int endVendorId = startOrOnlyVendorId;
             if (isRangeEntry) {
-                int endVendorId = bbv.readBits16(offset);
+                endVendorId = bbv.readBits16(offset);
                 offset += FieldDefs.START_OR_ONLY_VENDOR_ID.getLength(bbv);
+                checkRangeEntry(startOrOnlyVendorId, endVendorId, maxV);
+            }
 
-                if (startOrOnlyVendorId > endVendorId) {
-                    throw new InvalidRangeFieldException(String.format(
-                            "start vendor id (%d) is greater than endVendorId (%d)", startOrOnlyVendorId,
-                            endVendorId));
-                }
+            ranges[j << 1] = startOrOnlyVendorId;
+            ranges[(j << 1) + 1] = endVendorId;
+            max = Math.max(max, endVendorId);
+        }
 
-                if (endVendorId > maxV) {
-                    throw new InvalidRangeFieldException(
-                            String.format("end vendor id (%d) is greater than max (%d)", endVendorId, maxV));
-                }
+        return max;
+    }
 
-                bs.set(startOrOnlyVendorId, endVendorId + 1);
-            } else {
-                bs.set(startOrOnlyVendorId);
-            }
-        }
+    /**
+     * Returns the offset following this range entry
+     */
+    static int skipRange(BitReader bbv, int numberOfVendorEntriesOffset) {
+        int numberOfVendorEntries = bbv.readBits12(numberOfVendorEntriesOffset);
+        int offset = numberOfVendorEntriesOffset + FieldDefs.NUM_ENTRIES.getLength(bbv);
 
+        for (int j = 0; j < numberOfVendorEntries; j++) {
+            offset += bbv.readBits1(offset) ? 1 + 2 * START_OR_ONLY_VENDOR_ID.getLength()
+                    : 1 + START_OR_ONLY_VENDOR_ID.getLength();
+        }
         return offset;
     }
 
+    /**
+     * Reads the vendor section starting at the cursor, a max vendor id field followed by either a
+     * bitfield or a range, and shares it through the interner if there is one. The section is always
+     * decoded so that it doesn't depend on the consent string once read.
+     *
+     * @throws InvalidRangeFieldException
+     */
+    private IntIterable readVendors(Cursor c) {
+        if (interner == null) {
+            return c.readVendors();
+        }
+
+        int offset = c.offset;
+        c.skipVendors();
+        int length = c.offset - offset;
+
+        IntIterable value = interner.get(VendorSetInterner.VENDORS, c.bbv, offset, length);
+        if (value == null) {
+            value = new Cursor(c.bbv, offset).readVendors();
+            value = interner.put(VendorSetInterner.VENDORS, c.bbv, offset, length, value);
+        }
+        return value;
+    }
+
     /**
      * @throws InvalidRangeFieldException
      */
-    static void vendorIdsFromRange(BitReader bbv, BitSet bs, FieldDefs vendorField, Optional<FieldDefs> maxVendor) {
-        vendorIdsFromRange(bbv, bs, vendorField.getOffset(bbv), maxVendor);
+    private IntIterable vendors(BitReader bbv, FieldDefs maxVendor, FieldDefs vendorField) {
+        if (interner == null) {
+            return fillVendors(bbv, maxVendor, vendorField);
+        }
+        return readVendors(new Cursor(bbv, maxVendor.getOffset(bbv)));
+    }
+
+    /**
+     * Returns the vendor ids of the publisher restriction range between 'offset' and 'end'.
+     *
+     * @throws InvalidRangeFieldException
+     */
+    private IntIterable restrictionVendorIds(BitReader bbv, int offset, int end) {
+        if (interner == null) {
+            return vendorIdsFromRange(bbv, offset, Integer.MAX_VALUE);
+        }
+
+        IntIterable value = interner.get(VendorSetInterner.RANGE, bbv, offset, end - offset);
+        if (value == null) {
+            value = vendorIdsFromRange(bbv, offset, Integer.MAX_VALUE);
+            value = interner.put(VendorSetInterner.RANGE, bbv, offset, end - offset, value);
+        }
+        return value;
     }
 
     /**
@@ -228,96 +628,115 @@ class TCStringV2 implements TCString {
             currentPointer += 2;
             RestrictionType restrictionType = RestrictionType.from(restrictionTypeId);
 
-            BitSet bs = new BitSet();
-            currentPointer = vendorIdsFromRange(bbv, bs, currentPointer, Optional.empty());
+            int end = skipRange(bitVector, currentPointer);
+            IntIterable vendorIds = restrictionVendorIds(bitVector, currentPointer, end);
+            currentPointer = end;
             PublisherRestriction publisherRestriction =
-                    new PublisherRestriction(purposeId, restrictionType, BitSetIntIterable.from(bs));
+                    new PublisherRestriction(purposeId, restrictionType, vendorIds);
             publisherRestrictions.add(publisherRestriction);
         }
         return currentPointer;
     }
 
-    static BitSetIntIterable fillBitSet(BitReader bbv, FieldDefs field) {
+    static WordIntIterable fillBitSet(BitReader bbv, FieldDefs field) {
         int offset = field.getOffset(bbv);
         int length = field.getLength(bbv);
 
-        BitSetIntIterable.Builder bs = BitSetIntIterable.newBuilder();
-        for (int i = 0; i < length; i++) {
-            if (bbv.readBits1(offset + i)) {
-                bs.add(i + 1);
-            }
+        return readBitField(bbv, offset, length);
+    }
+
+    /**
+     * Reads a bitfield starting at value 1. Fields shorter than a word, such as purposes and special
+     * features, are read at once and map to shared instances.
+     */
+    static WordIntIterable readBitField(BitReader bbv, int offset, int length) {
+        if (length == 0) {
+            return WordIntIterable.EMPTY;
+        }
+        if (length < Long.SIZE) {
+            // the first bit read is the most significant, reverse so that it's value 1
+            return WordIntIterable.valueOf(Long.reverse(bbv.readBits(offset, length)) >>> (Long.SIZE - 1 - length));
         }
-        return bs.build();
+        return WordIntIterable.wrap(bbv.readWords(offset, length, 1));
     }
 
     @Override
     public int getVersion() {
-        if (cache.add(CORE_VERSION)) {
+        if (!isDecoded(CORE_VERSION)) {
             version = bbv.readBits6(CORE_VERSION);
+            markDecoded(CORE_VERSION);
         }
         return version;
     }
 
     @Override
     public Instant getCreated() {
-        if (cache.add(CORE_CREATED)) {
+        if (!isDecoded(CORE_CREATED)) {
             consentRecordCreated = Instant.ofEpochMilli(bbv.readBits36(CORE_CREATED) * 100);
+            markDecoded(CORE_CREATED);
         }
         return consentRecordCreated;
     }
 
     @Override
     public Instant getLastUpdated() {
-        if (cache.add(CORE_LAST_UPDATED)) {
+        if (!isDecoded(CORE_LAST_UPDATED)) {
             consentRecordLastUpdated = Instant.ofEpochMilli(bbv.readBits36(CORE_LAST_UPDATED) * 100);
+            markDecoded(CORE_LAST_UPDATED);
         }
         return consentRecordLastUpdated;
     }
 
     @Override
     public int getCmpId() {
-        if (cache.add(CORE_CMP_ID)) {
+        if (!isDecoded(CORE_CMP_ID)) {
             consentManagerProviderId = (short) bbv.readBits12(CORE_CMP_ID);
+            markDecoded(CORE_CMP_ID);
         }
         return consentManagerProviderId;
     }
 
     @Override
     public int getCmpVersion() {
-        if (cache.add(CORE_CMP_VERSION)) {
+        if (!isDecoded(CORE_CMP_VERSION)) {
             consentManagerProviderVersion = (short) bbv.readBits12(CORE_CMP_VERSION);
+            markDecoded(CORE_CMP_VERSION);
         }
         return consentManagerProviderVersion;
     }
 
     @Override
     public int getConsentScreen() {
-        if (cache.add(CORE_CONSENT_SCREEN)) {
+        if (!isDecoded(CORE_CONSENT_SCREEN)) {
             consentScreen = bbv.readBits6(CORE_CONSENT_SCREEN);
+            markDecoded(CORE_CONSENT_SCREEN);
         }
         return consentScreen;
     }
 
     @Override
     public String getConsentLanguage() {
-        if (cache.add(CORE_CONSENT_LANGUAGE)) {
+        if (!isDecoded(CORE_CONSENT_LANGUAGE)) {
             consentLanguage = bbv.readStr2(CORE_CONSENT_LANGUAGE);
+            markDecoded(CORE_CONSENT_LANGUAGE);
         }
         return consentLanguage;
     }
 
     @Override
     public int getVendorListVersion() {
-        if (cache.add(CORE_VENDOR_LIST_VERSION)) {
+        if (!isDecoded(CORE_VENDOR_LIST_VERSION)) {
             vendorListVersion = (short) bbv.readBits12(CORE_VENDOR_LIST_VERSION);
+            markDecoded(CORE_VENDOR_LIST_VERSION);
         }
         return vendorListVersion;
     }
 
     @Override
     public IntIterable getPurposesConsent() {
-        if (cache.add(CORE_PURPOSES_CONSENT)) {
+        if (!isDecoded(CORE_PURPOSES_CONSENT)) {
             purposesConsent = fillBitSet(bbv, CORE_PURPOSES_CONSENT);
+            markDecoded(CORE_PURPOSES_CONSENT);
         }
         return purposesConsent;
     }
@@ -327,8 +746,9 @@ class TCStringV2 implements TCString {
      */
     @Override
     public IntIterable getVendorConsent() {
-        if (cache.add(CORE_VENDOR_BITRANGE_FIELD)) {
-            vendorConsents = fillVendors(bbv, CORE_VENDOR_MAX_VENDOR_ID, CORE_VENDOR_BITRANGE_FIELD);
+        if (!isDecoded(CORE_VENDOR_BITRANGE_FIELD)) {
+            vendorConsents = vendors(bbv, CORE_VENDOR_MAX_VENDOR_ID, CORE_VENDOR_BITRANGE_FIELD);
+            markDecoded(CORE_VENDOR_BITRANGE_FIELD);
         }
         return vendorConsents;
     }
@@ -340,56 +760,63 @@ class TCStringV2 implements TCString {
 
     @Override
     public int getTcfPolicyVersion() {
-        if (cache.add(CORE_TCF_POLICY_VERSION)) {
+        if (!isDecoded(CORE_TCF_POLICY_VERSION)) {
             policyVersion = bbv.readBits6(CORE_TCF_POLICY_VERSION);
+            markDecoded(CORE_TCF_POLICY_VERSION);
         }
         return policyVersion;
     }
 
     @Override
     public boolean isServiceSpecific() {
-        if (cache.add(CORE_IS_SERVICE_SPECIFIC)) {
+        if (!isDecoded(CORE_IS_SERVICE_SPECIFIC)) {
             isServiceSpecific = bbv.readBits1(CORE_IS_SERVICE_SPECIFIC);
+            markDecoded(CORE_IS_SERVICE_SPECIFIC);
         }
         return isServiceSpecific;
     }
 
     @Override
     public boolean getUseNonStandardStacks() {
-        if (cache.add(CORE_USE_NON_STANDARD_STOCKS)) {
+        if (!isDecoded(CORE_USE_NON_STANDARD_STOCKS)) {
             useNonStandardStacks = bbv.readBits1(CORE_USE_NON_STANDARD_STOCKS);
+            markDecoded(CORE_USE_NON_STANDARD_STOCKS);
         }
         return useNonStandardStacks;
     }
 
     @Override
     public IntIterable getSpecialFeatureOptIns() {
-        if (cache.add(CORE_SPECIAL_FEATURE_OPT_INS)) {
+        if (!isDecoded(CORE_SPECIAL_FEATURE_OPT_INS)) {
             specialFeaturesOptInts = fillBitSet(bbv, CORE_SPECIAL_FEATURE_OPT_INS);
+            markDecoded(CORE_SPECIAL_FEATURE_OPT_INS);
         }
         return specialFeaturesOptInts;
     }
 
     @Override
     public IntIterable getPurposesLITransparency() {
-        if (cache.add(CORE_PURPOSES_LI_TRANSPARENCY)) {
+        if (!isDecoded(CORE_PURPOSES_LI_TRANSPARENCY)) {
             purposesLITransparency = fillBitSet(bbv, CORE_PURPOSES_LI_TRANSPARENCY);
+            markDecoded(CORE_PURPOSES_LI_TRANSPARENCY);
         }
         return purposesLITransparency;
     }
 
     @Override
     public boolean getPurposeOneTreatment() {
-        if (cache.add(CORE_PURPOSE_ONE_TREATMENT)) {
+        if (!isDecoded(CORE_PURPOSE_ONE_TREATMENT)) {
             isPurposeOneTreatment = bbv.readBits1(CORE_PURPOSE_ONE_TREATMENT);
+            markDecoded(CORE_PURPOSE_ONE_TREATMENT);
         }
         return isPurposeOneTreatment;
     }
 
     @Override
     public String getPublisherCC() {
-        if (cache.add(CORE_PUBLISHER_CC)) {
+        if (!isDecoded(CORE_PUBLISHER_CC)) {
             publisherCountryCode = bbv.readStr2(CORE_PUBLISHER_CC);
+            markDecoded(CORE_PUBLISHER_CC);
         }
         return publisherCountryCode;
     }
@@ -399,9 +826,10 @@ class TCStringV2 implements TCString {
      */
     @Override
     public IntIterable getVendorLegitimateInterest() {
-        if (cache.add(CORE_VENDOR_LI_BITRANGE_FIELD)) {
+        if (!isDecoded(CORE_VENDOR_LI_BITRANGE_FIELD)) {
             vendorLegitimateInterests =
-                    fillVendors(bbv, CORE_VENDOR_LI_MAX_VENDOR_ID, FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD);
+                    vendors(bbv, CORE_VENDOR_LI_MAX_VENDOR_ID, FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD);
+            markDecoded(CORE_VENDOR_LI_BITRANGE_FIELD);
         }
         return vendorLegitimateInterests;
     }
@@ -411,9 +839,11 @@ class TCStringV2 implements TCString {
      */
     @Override
     public List<PublisherRestriction> getPublisherRestrictions() {
-        if (cache.add(CORE_PUB_RESTRICTION_ENTRY)) {
-            publisherRestrictions = new ArrayList<>();
-            fillPublisherRestrictions(publisherRestrictions, CORE_NUM_PUB_RESTRICTION.getOffset(bbv), bbv);
+        if (!isDecoded(CORE_PUB_RESTRICTION_ENTRY)) {
+            List<PublisherRestriction> restrictions = new ArrayList<>();
+            fillPublisherRestrictions(restrictions, CORE_NUM_PUB_RESTRICTION.getOffset(bbv), bbv);
+            publisherRestrictions = Collections.unmodifiableList(restrictions);
+            markDecoded(CORE_PUB_RESTRICTION_ENTRY);
         }
         return publisherRestrictions;
     }
@@ -423,13 +853,14 @@ class TCStringV2 implements TCString {
      */
     @Override
     public IntIterable getAllowedVendors() {
-        if (cache.add(AV_VENDOR_BITRANGE_FIELD)) {
-            allowedVendors = BitSetIntIterable.EMPTY;
-
+        if (!isDecoded(AV_VENDOR_BITRANGE_FIELD)) {
+            IntIterable value = WordIntIterable.EMPTY;
             BitReader dvBbv = getSegment(SegmentType.ALLOWED_VENDOR);
             if (dvBbv != null) {
-                allowedVendors = fillVendors(dvBbv, AV_MAX_VENDOR_ID, AV_VENDOR_BITRANGE_FIELD);
+                value = vendors(dvBbv, AV_MAX_VENDOR_ID, AV_VENDOR_BITRANGE_FIELD);
             }
+            allowedVendors = value;
+            markDecoded(AV_VENDOR_BITRANGE_FIELD);
         }
         return allowedVendors;
     }
@@ -439,57 +870,152 @@ class TCStringV2 implements TCString {
      */
     @Override
     public IntIterable getDisclosedVendors() {
-        if (cache.add(DV_VENDOR_BITRANGE_FIELD)) {
-            disclosedVendors = BitSetIntIterable.EMPTY;
-
+        if (!isDecoded(DV_VENDOR_BITRANGE_FIELD)) {
+            IntIterable value = WordIntIterable.EMPTY;
             BitReader dvBbv = getSegment(SegmentType.DISCLOSED_VENDOR);
-
             if (dvBbv != null) {
-                disclosedVendors = fillVendors(dvBbv, DV_MAX_VENDOR_ID, DV_VENDOR_BITRANGE_FIELD);
+                value = vendors(dvBbv, DV_MAX_VENDOR_ID, DV_VENDOR_BITRANGE_FIELD);
             }
+            disclosedVendors = value;
+            markDecoded(DV_VENDOR_BITRANGE_FIELD);
         }
         return disclosedVendors;
     }
 
     @Override
     public IntIterable getPubPurposesLITransparency() {
-        if (cache.add(PPTC_PUB_PURPOSES_LI_TRANSPARENCY)) {
-            publisherPurposesLITransparency = BitSetIntIterable.EMPTY;
-
+        if (!isDecoded(PPTC_PUB_PURPOSES_LI_TRANSPARENCY)) {
+            IntIterable value = WordIntIterable.EMPTY;
             BitReader dvBbv = getSegment(SegmentType.PUBLISHER_TC);
             if (dvBbv != null) {
-                publisherPurposesLITransparency = fillBitSet(dvBbv, PPTC_PUB_PURPOSES_LI_TRANSPARENCY);
+                value = fillBitSet(dvBbv, PPTC_PUB_PURPOSES_LI_TRANSPARENCY);
             }
+            publisherPurposesLITransparency = value;
+            markDecoded(PPTC_PUB_PURPOSES_LI_TRANSPARENCY);
         }
         return publisherPurposesLITransparency;
     }
 
     @Override
     public IntIterable getCustomPurposesConsent() {
-        if (cache.add(PPTC_CUSTOM_PURPOSES_CONSENT)) {
-            customPurposesConsent = BitSetIntIterable.EMPTY;
-
+        if (!isDecoded(PPTC_CUSTOM_PURPOSES_CONSENT)) {
+            IntIterable value = WordIntIterable.EMPTY;
             BitReader dvBbv = getSegment(SegmentType.PUBLISHER_TC);
             if (dvBbv != null) {
-                customPurposesConsent = fillBitSet(dvBbv, PPTC_CUSTOM_PURPOSES_CONSENT);
+                value = fillBitSet(dvBbv, PPTC_CUSTOM_PURPOSES_CONSENT);
             }
+            customPurposesConsent = value;
+            markDecoded(PPTC_CUSTOM_PURPOSES_CONSENT);
         }
         return customPurposesConsent;
     }
 
     @Override
     public IntIterable getCustomPurposesLITransparency() {
-        if (cache.add(PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY)) {
-            customPurposesLITransparency = BitSetIntIterable.EMPTY;
-
+        if (!isDecoded(PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY)) {
+            IntIterable value = WordIntIterable.EMPTY;
             BitReader dvBbv = getSegment(SegmentType.PUBLISHER_TC);
             if (dvBbv != null) {
-                customPurposesLITransparency = fillBitSet(dvBbv, PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY);
+                value = fillBitSet(dvBbv, PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY);
             }
+            customPurposesLITransparency = value;
+            markDecoded(PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY);
         }
         return customPurposesLITransparency;
     }
 
+    /**
+     * Reads consecutive fields of a segment, advancing past each field as it is read.
+     */
+    private static class Cursor {
+        private final BitReader bbv;
+        private int offset;
+
+        Cursor(BitReader bbv, int offset) {
+            this.bbv = bbv;
+            this.offset = offset;
+        }
+
+        boolean readBits1() {
+            return bbv.readBits1(offset++);
+        }
+
+        byte readBits3() {
+            byte value = bbv.readBits3(offset);
+            offset += 3;
+            return value;
+        }
+
+        byte readBits6() {
+            byte value = bbv.readBits6(offset);
+            offset += 6;
+            return value;
+        }
+
+        int readBits12() {
+            int value = bbv.readBits12(offset);
+            offset += 12;
+            return value;
+        }
+
+        int readBits16() {
+            int value = bbv.readBits16(offset);
+            offset += 16;
+            return value;
+        }
+
+        long readBits36() {
+            long value = bbv.readBits36(offset);
+            offset += 36;
+            return value;
+        }
+
+        String readStr2() {
+            String value = bbv.readStr2(offset);
+            offset += 12;
+            return value;
+        }
+
+        WordIntIterable readBitSet(int length) {
+            WordIntIterable value = readBitField(bbv, offset, length);
+            offset += length;
+            return value;
+        }
+
+        void skip(int length) {
+            offset += length;
+        }
+
+        /**
+         * Skips a max vendor id field followed by either a vendor bitfield or a vendor range.
+         */
+        void skipVendors() {
+            int maxV = readBits16();
+            if (!readBits1()) {
+                skip(maxV);
+                return;
+            }
+
+            offset = skipRange(bbv, offset);
+        }
+
+        /**
+         * Reads a max vendor id field followed by either a vendor bitfield or a vendor range.
+         *
+         * @throws InvalidRangeFieldException
+         */
+        IntIterable readVendors() {
+            int maxV = readBits16();
+            if (!readBits1()) {
+                return readBitSet(maxV);
+            }
+
+            IntIterable value = vendorIdsFromRange(bbv, offset, maxV);
+            offset = skipRange(bbv, offset);
+            return value;
+        }
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(
@@ -0,0 +1,273 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.iabtcf.utils.CharSequenceBitReader;
+import com.iabtcf.utils.FieldDefs;
+
+/**
+ * Validates the structure of consent strings in a single pass without allocating. A valid string
+ * decodes without errors.
+ *
+ * Internally, validation steps return the offset following the validated section or a negative
+ * status code.
+ */
+public final class TCStringValidator {
+    public enum Status {
+        VALID,
+
+        /**
+         * A segment contains a character outside of the base64url alphabet.
+         */
+        ILLEGAL_CHARACTER,
+
+        /**
+         * A segment's length is not a valid base64 length.
+         */
+        ILLEGAL_LENGTH,
+
+        UNSUPPORTED_VERSION,
+
+        /**
+         * An out-of-band segment has an unknown segment type.
+         */
+        INVALID_SEGMENT_TYPE,
+
+        /**
+         * A segment ends before its last field.
+         */
+        TRUNCATED,
+
+        /**
+         * A range entry's start is greater than its end or its end is greater than the max vendor id.
+         */
+        INVALID_RANGE
+    }
+
+    private static final Status[] STATUSES = Status.values();
+
+    private static final int V1_VENDOR_OFFSET = FieldDefs.V1_VENDOR_MAX_VENDOR_ID.getOffset();
+    private static final int V2_VENDOR_OFFSET = FieldDefs.CORE_VENDOR_MAX_VENDOR_ID.getOffset();
+    private static final int PPTC_NUM_CUSTOM_PURPOSES_OFFSET = FieldDefs.PPTC_NUM_CUSTOM_PURPOSES.getOffset();
+
+    private TCStringValidator() {
+    }
+
+    public static Status validate(CharSequence consentString) {
+        int coreEnd = TCStringDecoder.segmentEnd(consentString, 0);
+        int bitLength = checkCharacters(consentString, 0, coreEnd);
+        if (bitLength < 0) {
+            return status(bitLength);
+        }
+        if (bitLength < FieldDefs.CORE_VERSION.getLength()) {
+            return Status.TRUNCATED;
+        }
+
+        int result;
+        switch ((int) read(consentString, 0, 0, FieldDefs.CORE_VERSION.getLength())) {
+            case 1:
+                // remaining segments are not decoded for v1
+                result = checkV1(consentString, bitLength);
+                break;
+            case 2:
+                result = checkV2(consentString, bitLength);
+                if (result >= 0) {
+                    result = checkSegments(consentString, coreEnd);
+                }
+                break;
+            default:
+                return Status.UNSUPPORTED_VERSION;
+        }
+
+        return result < 0 ? status(result) : Status.VALID;
+    }
+
+    private static int error(Status status) {
+        return -1 - status.ordinal();
+    }
+
+    private static Status status(int error) {
+        return STATUSES[-1 - error];
+    }
+
+    private static long read(CharSequence s, int start, int offset, int length) {
+        return CharSequenceBitReader.readBitsUnchecked(s, start, offset, length);
+    }
+
+    /**
+     * Returns the readable bit length of the segment between 'start' and 'end'.
+     */
+    private static int checkCharacters(CharSequence s, int start, int end) {
+        for (int i = 0; i < 2 && end > start && s.charAt(end - 1) == '='; i++) {
+            end--;
+        }
+
+        int length = end - start;
+        if (length % 4 == 1) {
+            return error(Status.ILLEGAL_LENGTH);
+        }
+
+        for (int i = start; i < end; i++) {
+            if (CharSequenceBitReader.valueOf(s.charAt(i)) < 0) {
+                return error(Status.ILLEGAL_CHARACTER);
+            }
+        }
+
+        return ((length * 6) >>> 3) << 3;
+    }
+
+    private static int checkV1(CharSequence s, int bitLength) {
+        int offset = V1_VENDOR_OFFSET;
+        if (offset + 17 > bitLength) {
+            return error(Status.TRUNCATED);
+        }
+
+        int maxV = (int) read(s, 0, offset, 16);
+        boolean isRange = read(s, 0, offset + 16, 1) == 1;
+        offset += 17;
+
+        if (!isRange) {
+            return checkLength(offset + maxV, bitLength);
+        }
+
+        // default consent
+        return checkRange(s, 0, bitLength, offset + 1, maxV);
+    }
+
+    private static int checkV2(CharSequence s, int bitLength) {
+        int offset = checkVendors(s, 0, bitLength, V2_VENDOR_OFFSET);
+        if (offset >= 0) {
+            offset = checkVendors(s, 0, bitLength, offset);
+        }
+        if (offset < 0) {
+            return offset;
+        }
+
+        if (offset + 12 > bitLength) {
+            return error(Status.TRUNCATED);
+        }
+        int numberOfPublisherRestrictions = (int) read(s, 0, offset, 12);
+        offset += 12;
+
+        for (int i = 0; i < numberOfPublisherRestrictions && offset >= 0; i++) {
+            // purpose id and restriction type
+            offset = checkRange(s, 0, bitLength, offset + 8, Integer.MAX_VALUE);
+        }
+        return offset;
+    }
+
+    private static int checkSegments(CharSequence s, int coreEnd) {
+        int last = s.length();
+        while (last > coreEnd && s.charAt(last - 1) == '.') {
+            last--;
+        }
+
+        int start = coreEnd + 1;
+        while (start <= last) {
+            int end = TCStringDecoder.segmentEnd(s, start);
+            int result = checkSegment(s, start, end);
+            if (result < 0) {
+                return result;
+            }
+            start = end + 1;
+        }
+        return 0;
+    }
+
+    private static int checkSegment(CharSequence s, int start, int end) {
+        int bitLength = checkCharacters(s, start, end);
+        if (bitLength < 0) {
+            return bitLength;
+        }
+        if (bitLength < FieldDefs.OOB_SEGMENT_TYPE.getLength()) {
+            return error(Status.TRUNCATED);
+        }
+
+        int offset = FieldDefs.OOB_SEGMENT_TYPE.getLength();
+        switch ((int) read(s, start, 0, offset)) {
+            case 1:
+            case 2:
+                return checkVendors(s, start, bitLength, offset);
+            case 3:
+                offset = PPTC_NUM_CUSTOM_PURPOSES_OFFSET;
+                if (offset + 6 > bitLength) {
+                    return error(Status.TRUNCATED);
+                }
+                int numCustomPurposes = (int) read(s, start, offset, 6);
+                return checkLength(offset + 6 + 2 * numCustomPurposes, bitLength);
+            default:
+                return error(Status.INVALID_SEGMENT_TYPE);
+        }
+    }
+
+    /**
+     * Checks a max vendor id field followed by either a vendor bitfield or a vendor range.
+     */
+    private static int checkVendors(CharSequence s, int start, int bitLength, int offset) {
+        if (offset + 17 > bitLength) {
+            return error(Status.TRUNCATED);
+        }
+
+        int maxV = (int) read(s, start, offset, 16);
+        boolean isRange = read(s, start, offset + 16, 1) == 1;
+        offset += 17;
+
+        if (!isRange) {
+            return checkLength(offset + maxV, bitLength);
+        }
+        return checkRange(s, start, bitLength, offset, maxV);
+    }
+
+    private static int checkRange(CharSequence s, int start, int bitLength, int offset, int maxV) {
+        if (offset + 12 > bitLength) {
+            return error(Status.TRUNCATED);
+        }
+        int numberOfVendorEntries = (int) read(s, start, offset, 12);
+        offset += 12;
+
+        for (int i = 0; i < numberOfVendorEntries; i++) {
+            if (offset + 17 > bitLength) {
+                return error(Status.TRUNCATED);
+            }
+            boolean isRangeEntry = read(s, start, offset, 1) == 1;
+            int startOrOnlyVendorId = (int) read(s, start, offset + 1, 16);
+            offset += 17;
+
+            // as in the decoder, single entries are not bounded by the max vendor id
+            if (isRangeEntry) {
+                if (offset + 16 > bitLength) {
+                    return error(Status.TRUNCATED);
+                }
+                int endVendorId = (int) read(s, start, offset, 16);
+                offset += 16;
+
+                if (startOrOnlyVendorId > endVendorId || endVendorId > maxV) {
+                    return error(Status.INVALID_RANGE);
+                }
+            }
+        }
+        return offset;
+    }
+
+    private static int checkLength(int end, int bitLength) {
+        return end > bitLength ? error(Status.TRUNCATED) : end;
+    }
+}
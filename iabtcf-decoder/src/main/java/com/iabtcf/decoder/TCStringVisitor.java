@@ -0,0 +1,101 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.iabtcf.utils.FieldDefs;
+import com.iabtcf.v2.RestrictionType;
+
+/**
+ * Receives the fields of a v2 consent string in encoding order from
+ * {@link TCString#accept(CharSequence, TCStringVisitor)}, without building any TCString values.
+ * All callbacks do nothing by default.
+ *
+ * Sets of small ids, such as purposes, are passed as masks in which bit 'id' is set for every id
+ * in the set, see {@link com.iabtcf.utils.WordIntIterable#valueOf(long)}. Vendor sets are
+ * identified by the FieldDefs used by their getter, for example
+ * {@link FieldDefs#CORE_VENDOR_BITRANGE_FIELD} for {@link TCString#getVendorConsent()}.
+ */
+public interface TCStringVisitor {
+    /**
+     * The core segment fields preceding the special feature opt ins. Timestamps are in milliseconds
+     * since the epoch and the consent language is passed as its two letters.
+     */
+    default void onHeader(int version, long created, long lastUpdated, int cmpId, int cmpVersion,
+            int consentScreen, char consentLanguage0, char consentLanguage1, int vendorListVersion,
+            int tcfPolicyVersion, boolean isServiceSpecific, boolean useNonStandardStacks) {
+    }
+
+    default void onSpecialFeatureOptIns(int mask) {
+    }
+
+    default void onPurposesConsent(int mask) {
+    }
+
+    default void onPurposesLITransparency(int mask) {
+    }
+
+    /**
+     * The core segment fields following the purposes, the publisher country code is passed as its
+     * two letters.
+     */
+    default void onPublisher(boolean purposeOneTreatment, char publisherCC0, char publisherCC1) {
+    }
+
+    /**
+     * Starts a vendor set, followed by either {@link #onVendorBit(FieldDefs, int)} or
+     * {@link #onVendorRange(FieldDefs, int, int)} callbacks for the same field.
+     */
+    default void onVendors(FieldDefs field, int maxVendorId) {
+    }
+
+    /**
+     * A vendor id of a bitfield encoded vendor set, in increasing order.
+     */
+    default void onVendorBit(FieldDefs field, int vendorId) {
+    }
+
+    /**
+     * A range entry of a range encoded vendor set or of a publisher restriction, from 'start' to
+     * 'end' inclusive. Entries are passed in encoding order and may overlap.
+     */
+    default void onVendorRange(FieldDefs field, int start, int end) {
+    }
+
+    /**
+     * Starts a publisher restriction, followed by its vendor ranges as
+     * {@link #onVendorRange(FieldDefs, int, int)} callbacks for
+     * {@link FieldDefs#CORE_PUB_RESTRICTION_ENTRY}.
+     */
+    default void onPublisherRestriction(int purposeId, RestrictionType restrictionType) {
+    }
+
+    /**
+     * The publisher purposes of the publisher TC segment.
+     */
+    default void onPublisherPurposes(int consentMask, int liTransparencyMask) {
+    }
+
+    /**
+     * The custom purposes of the publisher TC segment, 'count' is the number of custom purposes.
+     */
+    default void onCustomPurposes(int count, long consentMask, long liTransparencyMask) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static com.iabtcf.utils.FieldDefs.AV_VENDOR_BITRANGE_FIELD;
+import static com.iabtcf.utils.FieldDefs.CORE_PUB_RESTRICTION_ENTRY;
+import static com.iabtcf.utils.FieldDefs.CORE_VENDOR_BITRANGE_FIELD;
+import static com.iabtcf.utils.FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD;
+import static com.iabtcf.utils.FieldDefs.DV_VENDOR_BITRANGE_FIELD;
+
+import com.iabtcf.exceptions.ByteParseException;
+import com.iabtcf.exceptions.InvalidRangeFieldException;
+import com.iabtcf.exceptions.UnsupportedVersionException;
+import com.iabtcf.utils.BitReader;
+import com.iabtcf.utils.CharSequenceBitReader;
+import com.iabtcf.utils.FieldDefs;
+import com.iabtcf.v2.RestrictionType;
+import com.iabtcf.v2.SegmentType;
+
+/**
+ * Drives a {@link TCStringVisitor} with a single pass over the bits of a v2 consent string. Only
+ * the first out-of-band segment of each type is visited, as with the TCString getters.
+ */
+final class TCStringWalker {
+    private final TCStringVisitor visitor;
+    private BitReader bbv;
+    private int offset;
+
+    private TCStringWalker(TCStringVisitor visitor) {
+        this.visitor = visitor;
+    }
+
+    /**
+     * @throws ByteParseException if a segment ends before its last field
+     * @throws InvalidRangeFieldException if a range entry is invalid
+     * @throws UnsupportedVersionException if the consent string is not a v2 string
+     * @throws IllegalArgumentException if consentString is not in valid Base64 scheme
+     */
+    static void accept(CharSequence consentString, TCStringVisitor visitor) {
+        int coreEnd = TCStringDecoder.segmentEnd(consentString, 0);
+        TCStringWalker walker = new TCStringWalker(visitor);
+        walker.bbv = new CharSequenceBitReader(consentString, 0, coreEnd);
+
+        int version = walker.bbv.readBits6(FieldDefs.CORE_VERSION);
+        if (version != 2) {
+            throw new UnsupportedVersionException("Version " + version + " is not supported by visitors");
+        }
+        walker.visitCore();
+
+        int last = consentString.length();
+        while (last > coreEnd && consentString.charAt(last - 1) == '.') {
+            last--;
+        }
+
+        int visited = 0;
+        int start = coreEnd + 1;
+        while (start <= last) {
+            int end = TCStringDecoder.segmentEnd(consentString, start);
+            walker.bbv = new CharSequenceBitReader(consentString, start, end);
+            walker.offset = 0;
+
+            SegmentType segmentType = SegmentType.from(walker.readBits(FieldDefs.OOB_SEGMENT_TYPE.getLength()));
+            int bit = 1 << segmentType.value();
+            if (segmentType != SegmentType.INVALID && (visited & bit) == 0) {
+                visited |= bit;
+                walker.visitSegment(segmentType);
+            }
+            start = end + 1;
+        }
+    }
+
+    private int readBits(int length) {
+        int value = (int) bbv.readBits(offset, length);
+        offset += length;
+        return value;
+    }
+
+    private boolean readBit() {
+        return bbv.readBits1(offset++);
+    }
+
+    /**
+     * Reads a set of small ids as a mask in which bit 'id' is set.
+     */
+    private long readMask(int length) {
+        if (length == 0) {
+            return 0;
+        }
+        // the first bit read is the most significant, reverse so that it's value 1
+        long mask = Long.reverse(bbv.readBits(offset, length)) >>> (Long.SIZE - 1 - length);
+        offset += length;
+        return mask;
+    }
+
+    private char readChar() {
+        return (char) ('A' + readBits(6));
+    }
+
+    private void visitCore() {
+        int version = readBits(6);
+        long created = bbv.readBits36(offset) * 100;
+        offset += 36;
+        long lastUpdated = bbv.readBits36(offset) * 100;
+        offset += 36;
+        int cmpId = readBits(12);
+        int cmpVersion = readBits(12);
+        int consentScreen = readBits(6);
+        char consentLanguage0 = readChar();
+        char consentLanguage1 = readChar();
+        int vendorListVersion = readBits(12);
+        int tcfPolicyVersion = readBits(6);
+        boolean isServiceSpecific = readBit();
+        boolean useNonStandardStacks = readBit();
+        visitor.onHeader(version, created, lastUpdated, cmpId, cmpVersion, consentScreen, consentLanguage0,
+                consentLanguage1, vendorListVersion, tcfPolicyVersion, isServiceSpecific, useNonStandardStacks);
+
+        visitor.onSpecialFeatureOptIns((int) readMask(FieldDefs.CORE_SPECIAL_FEATURE_OPT_INS.getLength()));
+        visitor.onPurposesConsent((int) readMask(FieldDefs.CORE_PURPOSES_CONSENT.getLength()));
+        visitor.onPurposesLITransparency((int) readMask(FieldDefs.CORE_PURPOSES_LI_TRANSPARENCY.getLength()));
+
+        boolean purposeOneTreatment = readBit();
+        char publisherCC0 = readChar();
+        char publisherCC1 = readChar();
+        visitor.onPublisher(purposeOneTreatment, publisherCC0, publisherCC1);
+
+        visitVendors(CORE_VENDOR_BITRANGE_FIELD);
+        visitVendors(CORE_VENDOR_LI_BITRANGE_FIELD);
+
+        int numberOfPublisherRestrictions = readBits(12);
+        for (int i = 0; i < numberOfPublisherRestrictions; i++) {
+            int purposeId = readBits(6);
+            RestrictionType restrictionType = RestrictionType.from(readBits(2));
+            visitor.onPublisherRestriction(purposeId, restrictionType);
+            visitRange(CORE_PUB_RESTRICTION_ENTRY, Integer.MAX_VALUE);
+        }
+    }
+
+    private void visitSegment(SegmentType segmentType) {
+        switch (segmentType) {
+            case DISCLOSED_VENDOR:
+                visitVendors(DV_VENDOR_BITRANGE_FIELD);
+                break;
+            case ALLOWED_VENDOR:
+                visitVendors(AV_VENDOR_BITRANGE_FIELD);
+                break;
+            case PUBLISHER_TC:
+                int consentMask = (int) readMask(FieldDefs.PPTC_PUB_PURPOSES_CONSENT.getLength());
+                int liTransparencyMask = (int) readMask(FieldDefs.PPTC_PUB_PURPOSES_LI_TRANSPARENCY.getLength());
+                visitor.onPublisherPurposes(consentMask, liTransparencyMask);
+
+                int count = readBits(6);
+                long customConsentMask = readMask(count);
+                long customLITransparencyMask = readMask(count);
+                visitor.onCustomPurposes(count, customConsentMask, customLITransparencyMask);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Visits a max vendor id field followed by either a vendor bitfield or a vendor range.
+     */
+    private void visitVendors(FieldDefs field) {
+        int maxV = readBits(16);
+        boolean isRange = readBit();
+        visitor.onVendors(field, maxV);
+
+        if (isRange) {
+            visitRange(field, maxV);
+            return;
+        }
+
+        // checks that the whole bitfield is readable before the first callback
+        if (maxV > 0) {
+            bbv.readBits1(offset + maxV - 1);
+        }
+        for (int base = 0; base < maxV; base += Long.SIZE) {
+            int length = Math.min(Long.SIZE, maxV - base);
+            long word = bbv.readBits(offset + base, length) << (Long.SIZE - length);
+            while (word != 0) {
+                int bit = Long.numberOfLeadingZeros(word);
+                visitor.onVendorBit(field, base + bit + 1);
+                word &= ~(Long.MIN_VALUE >>> bit);
+            }
+        }
+        offset += maxV;
+    }
+
+    /**
+     * @throws InvalidRangeFieldException if an entry is invalid, preceding entries have been visited
+     */
+    private void visitRange(FieldDefs field, int maxV) {
+        int numberOfVendorEntries = readBits(12);
+        for (int j = 0; j < numberOfVendorEntries; j++) {
+            boolean isRangeEntry = readBit();
+            int startOrOnlyVendorId = readBits(16);
+            int endVendorId = startOrOnlyVendorId;
+            if (isRangeEntry) {
+                endVendorId = readBits(16);
+                TCStringV2.checkRangeEntry(startOrOnlyVendorId, endVendorId, maxV);
+            }
+            visitor.onVendorRange(field, startOrOnlyVendorId, endVendorId);
+        }
+    }
+}
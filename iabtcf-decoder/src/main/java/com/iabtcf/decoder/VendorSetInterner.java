@@ -0,0 +1,250 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.iabtcf.utils.BitReader;
+import com.iabtcf.utils.IntIterable;
+
+/**
+ * Shares decoded vendor sets between consent strings. CMPs emit the same vendor lists for every
+ * user of a publisher configuration, so strings cached with a {@link TCStringCache} otherwise hold
+ * many identical copies of their largest fields.
+ *
+ * Sets are keyed by the encoded bits of their section, a set is decoded only when its bits have not
+ * been seen before. The table is split into independently locked segments, each evicting its least
+ * recently used set when full, so it never holds more than maximumSize sets. Instances are
+ * thread-safe and are meant to be shared by all decoders.
+ */
+public final class VendorSetInterner {
+    /**
+     * A vendor section, a max vendor id field followed by either a bitfield or a range.
+     */
+    static final int VENDORS = 0;
+
+    /**
+     * A range without a max vendor id, as used by publisher restrictions.
+     */
+    static final int RANGE = 1;
+
+    private static final int CONCURRENCY_LEVEL = 16;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @throws IllegalArgumentException if maximumSize is not positive
+     */
+    public VendorSetInterner(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+
+        // at most one segment per entry, the segment capacities add up to maximumSize
+        int segmentCount = 1;
+        while (segmentCount < CONCURRENCY_LEVEL && segmentCount <= maximumSize >>> 1) {
+            segmentCount <<= 1;
+        }
+
+        int capacity = maximumSize / segmentCount;
+        int remainder = maximumSize % segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(i < remainder ? capacity + 1 : capacity);
+        }
+    }
+
+    /**
+     * Returns the shared set for the 'length' bits at 'offset' or null if the bits have not been
+     * seen.
+     */
+    IntIterable get(int kind, BitReader bbv, int offset, int length) {
+        Key key = new Key(kind, bbv, offset, length);
+        IntIterable value = segmentFor(key).get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Shares the set decoded from the 'length' bits at 'offset' and returns it, or returns the set
+     * shared by a concurrent decoder of the same bits.
+     */
+    IntIterable put(int kind, BitReader bbv, int offset, int length, IntIterable value) {
+        Key key = new Key(kind, readBits(bbv, offset, length), length, hashBits(bbv, offset, length));
+        return segmentFor(key).putIfAbsent(key, value);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment segmentFor(Key key) {
+        return segments[(key.hash ^ (key.hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static long[] readBits(BitReader bbv, int offset, int length) {
+        long[] bits = new long[(length + Long.SIZE - 1) >>> 6];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = readChunk(bbv, offset, length, i);
+        }
+        return bits;
+    }
+
+    private static long readChunk(BitReader bbv, int offset, int length, int i) {
+        int start = i << 6;
+        return bbv.readBits(offset + start, Math.min(Long.SIZE, length - start));
+    }
+
+    private static int hashBits(BitReader bbv, int offset, int length) {
+        long h = length;
+        for (int i = 0, n = (length + Long.SIZE - 1) >>> 6; i < n; i++) {
+            h = h * 0x9E3779B97F4A7C15L + readChunk(bbv, offset, length, i);
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * The encoded bits of a set, either copied when the set is shared or read from the consent
+     * string being decoded when looking a set up.
+     */
+    private static final class Key {
+        private final int kind;
+        private final int length;
+        private final int hash;
+        private final long[] bits;
+        private final BitReader bbv;
+        private final int offset;
+
+        Key(int kind, long[] bits, int length, int hash) {
+            this.kind = kind;
+            this.length = length;
+            this.hash = hash;
+            this.bits = bits;
+            this.bbv = null;
+            this.offset = 0;
+        }
+
+        Key(int kind, BitReader bbv, int offset, int length) {
+            this.kind = kind;
+            this.length = length;
+            this.hash = hashBits(bbv, offset, length);
+            this.bits = null;
+            this.bbv = bbv;
+            this.offset = offset;
+        }
+
+        private long chunk(int i) {
+            return bits != null ? bits[i] : readChunk(bbv, offset, length, i);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            if (kind != other.kind || length != other.length || hash != other.hash) {
+                return false;
+            }
+            if (bits != null && other.bits != null) {
+                return Arrays.equals(bits, other.bits);
+            }
+            for (int i = 0, n = (length + Long.SIZE - 1) >>> 6; i < n; i++) {
+                if (chunk(i) != other.chunk(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * An access ordered map, all operations are guarded by the segment's monitor.
+     */
+    private static final class Segment {
+        private final Map<Key, IntIterable> map;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<Key, IntIterable>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, IntIterable> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized IntIterable get(Key key) {
+            return map.get(key);
+        }
+
+        synchronized IntIterable putIfAbsent(Key key, IntIterable value) {
+            IntIterable previous = map.putIfAbsent(key, value);
+            return previous != null ? previous : value;
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CharSequence views of ASCII encoded bytes. Every byte is read as one char when accessed, the
+ * bytes are neither copied nor decoded up front. Changes to the underlying bytes are visible
+ * through the view.
+ *
+ * This is an internal only class and subject to change.
+ */
+public final class AsciiCharSequence {
+    private AsciiCharSequence() {
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if 'offset' or 'length' are out of range
+     */
+    public static CharSequence of(byte[] bytes, int offset, int length) {
+        checkRange(offset, length, bytes.length);
+        return new ByteArrayChars(bytes, offset, length);
+    }
+
+    /**
+     * Returns a view of the bytes between the buffer's position and limit. The buffer's position is
+     * not changed.
+     */
+    public static CharSequence of(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new ByteArrayChars(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return new ByteBufferChars(buffer, buffer.position(), buffer.remaining());
+    }
+
+    private static void checkRange(int offset, int length, int size) {
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new IndexOutOfBoundsException(
+                    String.format("offset %d, length %d, size %d", offset, length, size));
+        }
+    }
+
+    private static final class ByteArrayChars implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        ByteArrayChars(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            return (char) (bytes[offset + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            checkRange(start, end - start, length);
+            return new ByteArrayChars(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static final class ByteBufferChars implements CharSequence {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        ByteBufferChars(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            checkRange(start, end - start, length);
+            return new ByteBufferChars(buffer, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = charAt(i);
+            }
+            return new String(chars);
+        }
+    }
+}
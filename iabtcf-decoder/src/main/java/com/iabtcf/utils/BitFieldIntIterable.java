@@ -0,0 +1,129 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+import com.iabtcf.exceptions.ByteParseException;
+
+/**
+ * A lazy view of a bitfield read by a BitReader, value i is present when the i-th bit of the field
+ * is set, starting at 1. {@link #contains(int)} reads a single bit, all other operations decode the
+ * bitfield once into a {@link WordIntIterable}.
+ */
+public final class BitFieldIntIterable extends IntIterable {
+    private final BitReader bbv;
+    private final int offset;
+    private final int length;
+    private volatile WordIntIterable decoded;
+
+    private BitFieldIntIterable(BitReader bbv, int offset, int length) {
+        this.bbv = bbv;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns a view of the 'length' bits at 'offset'.
+     *
+     * @throws ByteParseException if the bitfield extends past the end of the reader
+     */
+    public static BitFieldIntIterable of(BitReader bbv, int offset, int length) {
+        if (length > 0) {
+            bbv.readBits1(offset + length - 1);
+        }
+        return new BitFieldIntIterable(bbv, offset, length);
+    }
+
+    /**
+     * Returns the decoded bitfield, decoding it on first use.
+     */
+    WordIntIterable decoded() {
+        WordIntIterable value = decoded;
+        if (value == null) {
+            decoded = value = WordIntIterable.wrap(bbv.readWords(offset, length, 1));
+        }
+        return value;
+    }
+
+    /**
+     * Returns the values in the layout of {@link java.util.BitSet#toLongArray()}.
+     */
+    public long[] toLongArray() {
+        return decoded().toLongArray();
+    }
+
+    @Override
+    public boolean contains(int value) {
+        return value >= 1 && value <= length && bbv.readBits1(offset + value - 1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return decoded().isEmpty();
+    }
+
+    @Override
+    public int cardinality() {
+        return decoded().cardinality();
+    }
+
+    /**
+     * Returns the maximum value in the set or 0 if the set is empty.
+     */
+    public int max() {
+        return decoded().max();
+    }
+
+    @Override
+    public void forEachInt(IntConsumer action) {
+        decoded().forEachInt(action);
+    }
+
+    @Override
+    public Spliterator.OfInt intSpliterator() {
+        return decoded().intSpliterator();
+    }
+
+    @Override
+    public IntIterator intIterator() {
+        return decoded().intIterator();
+    }
+
+    @Override
+    public int hashCode() {
+        return decoded().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return decoded().equals(obj instanceof BitFieldIntIterable ? ((BitFieldIntIterable) obj).decoded() : obj);
+    }
+
+    @Override
+    public String toString() {
+        return decoded().toString();
+    }
+}
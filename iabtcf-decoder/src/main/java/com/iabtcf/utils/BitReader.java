@@ -39,14 +39,25 @@ public class BitReader {
         this.buffer = new byte[4096];
         this.is = is;
         this.isrpos = 0;
-        cache = new LengthOffsetCache(this);
+        cache = new LengthOffsetCache();
     }
 
     public BitReader(byte[] buffer) {
         this.buffer = buffer;
         this.isrpos = buffer.length;
         this.is = null;
-        cache = new LengthOffsetCache(this);
+        cache = new LengthOffsetCache();
+    }
+
+    /**
+     * For subclasses that supply bits from a source other than a byte array or stream. Such
+     * subclasses must override every read method.
+     */
+    protected BitReader() {
+        this.buffer = null;
+        this.isrpos = 0;
+        this.is = null;
+        cache = new LengthOffsetCache();
     }
 
     private void ensureCapacity(int length) {
@@ -95,6 +106,14 @@ public class BitReader {
         return true;
     }
 
+    /**
+     * Returns true if the bits can never change, so that views of the bits may outlive the decode.
+     * The bytes of a reader may be changed by whoever supplied them.
+     */
+    public boolean isImmutable() {
+        return false;
+    }
+
     public String readStr2(int offset) {
         return String
             .valueOf(new char[] {(char) ('A' + readBits6(offset)), (char) ('A' + readBits6(offset + 6))});
@@ -321,17 +340,67 @@ public class BitReader {
     }
 
     /**
+     * Reads up to 64 bits, returning the value in the least significant 'length' bits.
+     *
      * @throws ByteParseException
+     * @throws IllegalArgumentException if length is not within [1, 64]
      */
-    public BitSet readBitSet(int offset, int length) {
-        // TODO(mk): can we read larger chunks at a time?
-        BitSet bs = new BitSet(length);
-        for (int i = 0; i < length; i++) {
-            if (readBits1(offset + i)) {
-                bs.set(i);
-            }
+    public long readBits(int offset, int length) {
+        if (length <= 0 || length > Long.SIZE) {
+            throw new IllegalArgumentException("length is invalid: " + length);
+        }
+
+        int startByte = offset >>> 3;
+        int bitPos = offset % 8;
+        int nbytes = (bitPos + length + 7) >>> 3;
+        int n = Math.min(nbytes, Long.BYTES);
+
+        ensureReadable(startByte, nbytes);
+
+        long value = 0;
+        for (int i = 0; i < n; i++) {
+            value = (value << 8) | (buffer[startByte + i] & 0xFF);
+        }
+
+        if (nbytes > Long.BYTES) {
+            // the bits straddle 9 bytes, drop the leading bits to make room for the last byte
+            value = (value << bitPos) | ((buffer[startByte + Long.BYTES] & 0xFF) >>> (8 - bitPos));
+            return value >>> (Long.SIZE - length);
+        }
+
+        value >>>= (n << 3) - bitPos - length;
+        return length == Long.SIZE ? value : value & ((1L << length) - 1);
+    }
+
+    /**
+     * Reads 'length' bits starting at 'offset' into an array of words laid out as expected by
+     * {@link BitSet#valueOf(long[])}. The bit found at 'offset + i' is stored at index 'startIndex +
+     * i'. Bits are read up to 64 at a time.
+     *
+     * @throws ByteParseException
+     */
+    public long[] readWords(int offset, int length, int startIndex) {
+        long[] words = new long[(startIndex + length + Long.SIZE - 1) >>> 6];
+
+        for (int i = 0; i < length;) {
+            int index = startIndex + i;
+            int wordPos = index % Long.SIZE;
+            int n = Math.min(Long.SIZE - wordPos, length - i);
+
+            // the first bit read is the most significant, reverse so that it's at wordPos
+            long bits = Long.reverse(readBits(offset + i, n)) >>> (Long.SIZE - n);
+            words[index >>> 6] |= bits << wordPos;
+            i += n;
         }
-        return bs;
+
+        return words;
+    }
+
+    /**
+     * @throws ByteParseException
+     */
+    public BitSet readBitSet(int offset, int length) {
+        return BitSet.valueOf(readWords(offset, length, 0));
     }
 
     private byte unsafeReadMsb(byte from, int offset, int length) {
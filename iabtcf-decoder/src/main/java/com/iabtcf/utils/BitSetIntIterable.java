@@ -23,6 +23,7 @@ package com.iabtcf.utils;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 /**
  * An implementation of the IntIterable based on BitSet.
@@ -40,6 +41,12 @@ public class BitSetIntIterable extends IntIterable {
         if (ii instanceof BitSetIntIterable) {
             return ((BitSetIntIterable) ii).clone();
         }
+        if (ii instanceof BitFieldIntIterable) {
+            ii = ((BitFieldIntIterable) ii).decoded();
+        }
+        if (ii instanceof WordIntIterable) {
+            return new BitSetIntIterable(((WordIntIterable) ii).toBitSet());
+        }
 
         BitSet bs = new BitSet();
         for (IntIterator i = ii.intIterator(); i.hasNext();) {
@@ -83,6 +90,20 @@ public class BitSetIntIterable extends IntIterable {
         return (BitSet) bs.clone();
     }
 
+    /**
+     * Returns the values in the layout of {@link BitSet#toLongArray()}.
+     */
+    public long[] toLongArray() {
+        return bs.toLongArray();
+    }
+
+    /**
+     * Returns the backing BitSet without copying it.
+     */
+    BitSet bitSet() {
+        return bs;
+    }
+
     @Override
     public BitSetIntIterable clone() {
         return new BitSetIntIterable((BitSet) bs.clone());
@@ -96,6 +117,16 @@ public class BitSetIntIterable extends IntIterable {
         return bs.get(value);
     }
 
+    @Override
+    public int cardinality() {
+        return bs.cardinality();
+    }
+
+    @Override
+    public Spliterator.OfInt intSpliterator() {
+        return new WordIntIterable.WordSpliterator(bs.toLongArray());
+    }
+
     @Override
     public IntIterator intIterator() {
         return new IntIterator() {
@@ -147,6 +178,9 @@ public class BitSetIntIterable extends IntIterable {
         if (obj == null) {
             return false;
         }
+        if (obj instanceof WordIntIterable || obj instanceof RangeIntIterable || obj instanceof BitFieldIntIterable) {
+            return obj.equals(this);
+        }
         if (getClass() != obj.getClass()) {
             return false;
         }
@@ -0,0 +1,203 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.iabtcf.exceptions.ByteParseException;
+
+/**
+ * A BitReader that reads directly from a base64url encoded segment of a CharSequence. Every
+ * character supplies 6 bits which are resolved through a lookup table when read, so the segment is
+ * never copied into an intermediate byte array.
+ *
+ * The readable length matches that of the bytes produced by {@link java.util.Base64.Decoder}, that
+ * is, trailing bits that do not complete a byte can not be read.
+ *
+ * This is an internal only class and subject to change.
+ */
+public class CharSequenceBitReader extends BitReader {
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        for (int i = 0; i < DECODE_TABLE.length; i++) {
+            DECODE_TABLE[i] = -1;
+        }
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final CharSequence src;
+    private final int start;
+    private final int bitLength;
+
+    public CharSequenceBitReader(CharSequence src) {
+        this(src, 0, src.length());
+    }
+
+    /**
+     * Reads the characters of 'src' between 'start', inclusive, and 'end', exclusive. Any trailing
+     * '=' padding characters are ignored.
+     *
+     * @throws IllegalArgumentException if the segment is not a valid base64 length
+     * @throws IndexOutOfBoundsException if 'start' or 'end' are out of range
+     */
+    public CharSequenceBitReader(CharSequence src, int start, int end) {
+        if (start < 0 || end > src.length() || start > end) {
+            throw new IndexOutOfBoundsException(
+                    String.format("start %d, end %d, length %d", start, end, src.length()));
+        }
+
+        for (int i = 0; i < 2 && end > start && src.charAt(end - 1) == '='; i++) {
+            end--;
+        }
+
+        int length = end - start;
+        if (length % 4 == 1) {
+            throw new IllegalArgumentException("Last unit does not have enough valid bits");
+        }
+
+        this.src = src;
+        this.start = start;
+        this.bitLength = ((length * 6) >>> 3) << 3;
+    }
+
+    /**
+     * Only Strings are immutable, other CharSequences such as StringBuilders or byte views may change
+     * after the decode.
+     */
+    @Override
+    public boolean isImmutable() {
+        return src instanceof String;
+    }
+
+    /**
+     * Returns the 6 bit value of a base64url character or -1 if the character is not part of the
+     * alphabet.
+     */
+    public static int valueOf(char c) {
+        return c < DECODE_TABLE.length ? DECODE_TABLE[c] : -1;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the character is not part of the base64url alphabet
+     */
+    private static int decode(char c) {
+        int v = valueOf(c);
+        if (v < 0) {
+            throw new IllegalArgumentException("Illegal base64 character " + Integer.toString(c, 16));
+        }
+        return v;
+    }
+
+    /**
+     * Reads 1 to 58 bits at 'offset' of the base64url characters starting at 'start'. The caller
+     * must ensure the characters are within 'src'.
+     *
+     * @throws IllegalArgumentException if a character is not part of the base64url alphabet
+     */
+    public static long readBitsUnchecked(CharSequence src, int start, int offset, int length) {
+        int idx = start + offset / 6;
+        int skip = offset % 6;
+        long value = decode(src.charAt(idx++)) & (0x3F >>> skip);
+        int available = 6 - skip;
+
+        while (available < length) {
+            value = (value << 6) | decode(src.charAt(idx++));
+            available += 6;
+        }
+
+        return value >>> (available - length);
+    }
+
+    /**
+     * @throws ByteParseException
+     */
+    private void ensureReadable(int offset, int length) {
+        if (offset < 0 || offset + length > bitLength) {
+            throw new ByteParseException(String.format("read %d bits at index %d out of bounds for bit length %d",
+                    length, offset, bitLength));
+        }
+    }
+
+    /**
+     * Reads up to 64 bits, 6 bits per character.
+     *
+     * @throws ByteParseException
+     * @throws IllegalArgumentException if length is not within [1, 64]
+     */
+    @Override
+    public long readBits(int offset, int length) {
+        if (length <= 0 || length > Long.SIZE) {
+            throw new IllegalArgumentException("length is invalid: " + length);
+        }
+
+        ensureReadable(offset, length);
+
+        if (length > Long.SIZE - 6) {
+            // the leading character may contribute up to 5 bits that are not read, don't overflow
+            return (readBits(offset, length - Integer.SIZE) << Integer.SIZE)
+                    | readBits(offset + length - Integer.SIZE, Integer.SIZE);
+        }
+
+        return readBitsUnchecked(src, start, offset, length);
+    }
+
+    @Override
+    public boolean readBits1(int offset) {
+        return readBits(offset, 1) == 1;
+    }
+
+    @Override
+    public byte readBits2(int offset) {
+        return (byte) readBits(offset, 2);
+    }
+
+    @Override
+    public byte readBits3(int offset) {
+        return (byte) readBits(offset, 3);
+    }
+
+    @Override
+    public byte readBits6(int offset) {
+        return (byte) readBits(offset, 6);
+    }
+
+    @Override
+    public int readBits12(int offset) {
+        return (int) readBits(offset, 12);
+    }
+
+    @Override
+    public int readBits16(int offset) {
+        return (int) readBits(offset, 16);
+    }
+
+    @Override
+    public int readBits24(int offset) {
+        return (int) readBits(offset, 24);
+    }
+
+    @Override
+    public long readBits36(int offset) {
+        return readBits(offset, 36);
+    }
+}
@@ -20,20 +20,18 @@ package com.iabtcf.utils;
  * #L%
  */
 
-import java.util.function.Function;
+import java.util.Arrays;
 
 /**
  * This enum defines all V1 and V2 consent string fields with their offsets and lengths. Since some
- * fields have dynamic values, the offset and length methods are a function of ByteBitVector
- * allowing a dynamic field access to the consent string.
+ * fields have dynamic values, the offset and length methods are a function of BitReader allowing a
+ * dynamic field access to the consent string.
  *
- * The enum takes care to cache the lengths and offsets of fields when appropriate. Whenever
- * possible, static field lengths and offsets are cached by the enum using the MemoizingFunction.
- * Due to the dynamic nature of some fields, computing the offsets and lengths can only be done at
- * runtime when a consent string is parsed. For such fields, their values are cached by the
- * ByteBitVector used to parse the consent string.
- *
- * All fields following a dynamic field are treated as a dynamic field.
+ * The field layout is compiled when the enum is initialized. Static field offsets and lengths are
+ * stored in int arrays indexed by ordinal. A field that follows a dynamic length field has a
+ * dynamic offset, which is computed from the dynamic length fields preceding it, its anchors, plus
+ * a constant delta. Dynamic offsets and lengths are cached by the BitReader used to parse the
+ * consent string.
  */
 public enum FieldDefs {
     CORE_VERSION(6, 0),
@@ -83,42 +81,22 @@ public enum FieldDefs {
     PPTC_PUB_PURPOSES_CONSENT(24),
     PPTC_PUB_PURPOSES_LI_TRANSPARENCY(24),
     PPTC_NUM_CUSTOM_PURPOSES(6),
-    PPTC_CUSTOM_PURPOSES_CONSENT(new LengthSupplier() {
-        @Override
-        public Integer apply(BitReader t) {
-            return Integer.valueOf(t.readBits6(PPTC_NUM_CUSTOM_PURPOSES.getOffset(t)));
-        }
-
-        @Override
-        public boolean isDynamic() {
-            return true;
-        }
-    }),
-    PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY(new LengthSupplier() {
-        @Override
-        public Integer apply(BitReader t) {
-            // same length as PPTC_CUSTOM_PURPOSES_CONSENT
-            return PPTC_CUSTOM_PURPOSES_CONSENT.getLength(t);
-        }
-
-        @Override
-        public boolean isDynamic() {
-            return true;
-        }
-    }),
+    PPTC_CUSTOM_PURPOSES_CONSENT(t -> t.readBits6(FieldDefs.PPTC_NUM_CUSTOM_PURPOSES.getOffset(t))),
+    // same length as PPTC_CUSTOM_PURPOSES_CONSENT
+    PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY(t -> FieldDefs.PPTC_CUSTOM_PURPOSES_CONSENT.getLength(t)),
 
     // range entry, only field lengths are supported
-    NUM_ENTRIES(12, OffsetSupplier.NOT_SUPPORTED),
-    IS_A_RANGE(1, OffsetSupplier.NOT_SUPPORTED),
-    START_OR_ONLY_VENDOR_ID(16, OffsetSupplier.NOT_SUPPORTED),
-    END_VENDOR_ID(16, OffsetSupplier.NOT_SUPPORTED),
-    TIMESTAMP(36, OffsetSupplier.NOT_SUPPORTED),
+    NUM_ENTRIES(12, Offset.NOT_SUPPORTED),
+    IS_A_RANGE(1, Offset.NOT_SUPPORTED),
+    START_OR_ONLY_VENDOR_ID(16, Offset.NOT_SUPPORTED),
+    END_VENDOR_ID(16, Offset.NOT_SUPPORTED),
+    TIMESTAMP(36, Offset.NOT_SUPPORTED),
 
     // publish restriction fields, only field lengths are supported
-    PURPOSE_ID(6, OffsetSupplier.NOT_SUPPORTED),
-    RESTRICTION_TYPE(2, OffsetSupplier.NOT_SUPPORTED),
+    PURPOSE_ID(6, Offset.NOT_SUPPORTED),
+    RESTRICTION_TYPE(2, Offset.NOT_SUPPORTED),
 
-    CHAR(6, OffsetSupplier.NOT_SUPPORTED),
+    CHAR(6, Offset.NOT_SUPPORTED),
 
     // v1 fields
     V1_VERSION(6, 0),
@@ -140,49 +118,113 @@ public enum FieldDefs {
     V1_PPC_PUBLISHER_PURPOSES_VERSION(12, V1_VENDOR_LIST_VERSION),
     V1_PPC_STANDARD_PURPOSES_ALLOWED(24),
     V1_PPC_NUMBER_CUSTOM_PURPOSES(6),
-    V1_PPC_CUSTOM_PURPOSES_BITFIELD(new LengthSupplier() {
+    V1_PPC_CUSTOM_PURPOSES_BITFIELD(
+            t -> Byte.toUnsignedInt(t.readBits6(FieldDefs.V1_PPC_NUMBER_CUSTOM_PURPOSES.getOffset(t))));
 
-        @Override
-        public Integer apply(BitReader t) {
-            return Byte.toUnsignedInt(t.readBits6(FieldDefs.V1_PPC_NUMBER_CUSTOM_PURPOSES.getOffset(t)));
-        }
 
-        @Override
-        public boolean isDynamic() {
-            return true;
+    private static final int DYNAMIC = -1;
+    private static final int NOT_SUPPORTED = -2;
+    private static final int[] NO_ANCHORS = {};
+
+    private static final FieldDefs[] FIELDS = values();
+
+    /**
+     * Static offsets, or DYNAMIC or NOT_SUPPORTED.
+     */
+    private static final int[] OFFSETS = new int[FIELDS.length];
+
+    /**
+     * Static lengths, or DYNAMIC.
+     */
+    private static final int[] LENGTHS = new int[FIELDS.length];
+
+    /**
+     * The ordinals of the dynamic length fields a dynamic offset depends on, in encoding order.
+     */
+    private static final int[][] ANCHORS = new int[FIELDS.length][];
+
+    /**
+     * The number of bits between the end of the last anchor and a dynamic offset.
+     */
+    private static final int[] DELTAS = new int[FIELDS.length];
+
+    static {
+        for (FieldDefs field : FIELDS) {
+            int i = field.ordinal();
+            LENGTHS[i] = field.lengthSupplier != null ? DYNAMIC : field.length;
+            ANCHORS[i] = NO_ANCHORS;
+
+            if (field.offsetKind == Offset.NOT_SUPPORTED) {
+                OFFSETS[i] = NOT_SUPPORTED;
+                continue;
+            }
+
+            if (field.offsetKind == Offset.CONSTANT) {
+                OFFSETS[i] = field.offset;
+                continue;
+            }
+
+            int b = field.offsetKind == Offset.AFTER_FIELD ? field.after.ordinal() : i - 1;
+            if (LENGTHS[b] == DYNAMIC) {
+                OFFSETS[i] = DYNAMIC;
+                ANCHORS[i] = Arrays.copyOf(ANCHORS[b], ANCHORS[b].length + 1);
+                ANCHORS[i][ANCHORS[b].length] = b;
+            } else if (OFFSETS[b] == DYNAMIC) {
+                OFFSETS[i] = DYNAMIC;
+                ANCHORS[i] = ANCHORS[b];
+                DELTAS[i] = DELTAS[b] + LENGTHS[b];
+            } else {
+                OFFSETS[i] = OFFSETS[b] + LENGTHS[b];
+            }
         }
-    });
+    }
 
-    private OffsetSupplier offset;
-    private LengthSupplier length;
-    private volatile boolean isDynamic = false;
-    private volatile boolean isDynamicInit = false;
+    private final int length;
+    private final LengthSupplier lengthSupplier;
+    private final Offset offsetKind;
+    private final int offset;
+    private final FieldDefs after;
 
     FieldDefs(int length, FieldDefs field) {
         assert field != this;
 
-        this.length = LengthSupplier.constant(length);
-        this.offset = OffsetSupplier.from(field);
+        this.length = length;
+        this.lengthSupplier = null;
+        this.offsetKind = Offset.AFTER_FIELD;
+        this.offset = 0;
+        this.after = field;
     }
 
-    FieldDefs(int length, OffsetSupplier offset) {
-        this.length = LengthSupplier.constant(length);
-        this.offset = offset;
+    FieldDefs(int length, Offset offset) {
+        this.length = length;
+        this.lengthSupplier = null;
+        this.offsetKind = offset;
+        this.offset = 0;
+        this.after = null;
     }
 
     FieldDefs(final int length, int offset) {
-        this.length = LengthSupplier.constant(length);
-        this.offset = OffsetSupplier.constant(offset);
+        this.length = length;
+        this.lengthSupplier = null;
+        this.offsetKind = Offset.CONSTANT;
+        this.offset = offset;
+        this.after = null;
     }
 
     FieldDefs(LengthSupplier length) {
-        this.length = length;
-        this.offset = OffsetSupplier.fromPrevious(this);
+        this.length = DYNAMIC;
+        this.lengthSupplier = length;
+        this.offsetKind = Offset.AFTER_PREVIOUS;
+        this.offset = 0;
+        this.after = null;
     }
 
     FieldDefs(final int length) {
-        this.length = LengthSupplier.constant(length);
-        this.offset = OffsetSupplier.fromPrevious(this);
+        this.length = length;
+        this.lengthSupplier = null;
+        this.offsetKind = Offset.AFTER_PREVIOUS;
+        this.offset = 0;
+        this.after = null;
     }
 
     /**
@@ -190,183 +232,111 @@ public enum FieldDefs {
      * being processed.
      */
     protected boolean isDynamic() {
-        if (!isDynamicInit) {
-            isDynamic = offset.isDynamic() || length.isDynamic();
-            isDynamicInit = true;
-        }
-        return isDynamic;
+        return OFFSETS[ordinal()] == DYNAMIC || LENGTHS[ordinal()] == DYNAMIC;
     }
 
     /**
      * Returns the length of a non-dynamic field.
      */
     public int getLength() {
-        assert (length.isDynamic() == false);
+        assert (LENGTHS[ordinal()] != DYNAMIC);
 
-        return length.apply(null);
+        return LENGTHS[ordinal()];
     }
 
     /**
      * Returns the length of the field.
      */
     public int getLength(BitReader bbv) {
-        return bbv.cache.getLength(this, length);
-    }
+        int i = ordinal();
+        if (LENGTHS[i] != DYNAMIC) {
+            return LENGTHS[i];
+        }
 
-    /**
-     * Returns the offset of the field.
-     */
-    public int getOffset(BitReader bbv) {
-        return bbv.cache.getOffset(this, offset);
+        int length = bbv.cache.getLength(i);
+        if (length < 0) {
+            length = lengthSupplier.apply(bbv);
+            bbv.cache.putLength(i, length);
+        }
+        return length;
     }
 
     /**
-     * Returns the offset of the next field.
+     * Returns the offset of a non-dynamic field.
      */
-    public int getEnd(BitReader bbv) {
-        return getLength(bbv) + getOffset(bbv);
+    public int getOffset() {
+        assert (OFFSETS[ordinal()] >= 0);
+
+        return OFFSETS[ordinal()];
     }
 
     /**
-     * The offset of the nth field depends on the length and offset of the nth-1 field. This class
-     * is used to cache offset + length of static fields to avoid querying parent fields.
-     *
-     * Both the value and it's dynamic state are cached.
-     *
-     * Dynamic fields are not cached at the enum level and are instead resolved through the BitReader.
+     * Returns the offset of the field.
      */
-    private static abstract class MemoizingFunction
-            implements LengthSupplier, OffsetSupplier, Function<BitReader, Integer> {
-        private volatile boolean dynamicInitialized = false;
-        private volatile boolean isDynamic = false;
-        private volatile Integer value;
-
-        public abstract Integer doCompute(BitReader t);
-
-        /**
-         * implementation must be thread-safe
-         */
-        @Override
-        public abstract boolean isDynamic();
-
-        @Override
-        public Integer apply(BitReader t) {
-            if (isDynamicPvt()) {
-                return doCompute(t);
-            } else if (value == null) {
-                value = doCompute(t);
-            }
-
-            return value;
+    public int getOffset(BitReader bbv) {
+        int i = ordinal();
+        if (OFFSETS[i] >= 0) {
+            return OFFSETS[i];
         }
-
-        private boolean isDynamicPvt() {
-            if (!dynamicInitialized) {
-                isDynamic = isDynamic();
-                dynamicInitialized = true;
-            }
-            return isDynamic;
+        if (OFFSETS[i] == NOT_SUPPORTED) {
+            throw new UnsupportedOperationException();
         }
-    }
-
-    private interface OffsetSupplier extends Function<BitReader, Integer> {
 
-        /**
-         * This is used when we don't want a field to support offsets.
-         */
-        OffsetSupplier NOT_SUPPORTED = new OffsetSupplier() {
-
-            @Override
-            public Integer apply(BitReader t) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public boolean isDynamic() {
-                return false;
-            }
-        };
-
-        /**
-         * A constant offset for static fields.
-         */
-        static OffsetSupplier constant(int offset) {
-            return new OffsetSupplier() {
-
-                @Override
-                public Integer apply(BitReader t) {
-                    return offset;
-                }
-
-                @Override
-                public boolean isDynamic() {
-                    return false;
-                }
-            };
+        int offset = bbv.cache.getOffset(i);
+        if (offset < 0) {
+            offset = resolveOffset(bbv, i);
         }
+        return offset;
+    }
 
-        /**
-         * Supplies the offset that's based on the specified field. The offset value is stored to
-         * avoid re-computing.
-         */
-        static OffsetSupplier from(final FieldDefs thisEnum) {
-            return new MemoizingFunction() {
-                @Override
-                public boolean isDynamic() {
-                    return thisEnum.isDynamic();
-                }
-
-                @Override
-                public Integer doCompute(BitReader t) {
-                    return thisEnum.getLength(t) + thisEnum.getOffset(t);
+    /**
+     * Walks the anchors of a dynamic offset in encoding order, caching the offset of each.
+     */
+    private static int resolveOffset(BitReader bbv, int i) {
+        int end = 0;
+        for (int a : ANCHORS[i]) {
+            int anchorOffset = OFFSETS[a];
+            if (anchorOffset < 0) {
+                anchorOffset = bbv.cache.getOffset(a);
+                if (anchorOffset < 0) {
+                    anchorOffset = end + DELTAS[a];
+                    bbv.cache.putOffset(a, anchorOffset);
                 }
-            };
+            }
+            end = anchorOffset + FIELDS[a].getLength(bbv);
         }
 
-        /**
-         * Supplies the offset that's based on the the fields previous field. The offset value is
-         * stored to avoid re-computing.
-         */
-        static OffsetSupplier fromPrevious(final FieldDefs thisEnum) {
-            return new MemoizingFunction() {
-
-                @Override
-                public boolean isDynamic() {
-                    return FieldDefs.values()[thisEnum.ordinal() - 1].isDynamic();
-                }
-
-                @Override
-                public Integer doCompute(BitReader t) {
-                    FieldDefs prevEnum = FieldDefs.values()[thisEnum.ordinal() - 1];
-                    return prevEnum.getLength(t) + prevEnum.getOffset(t);
-                }
-            };
-        }
+        int offset = end + DELTAS[i];
+        bbv.cache.putOffset(i, offset);
+        return offset;
+    }
 
-        boolean isDynamic();
+    /**
+     * Returns the offset of the next field.
+     */
+    public int getEnd(BitReader bbv) {
+        return getLength(bbv) + getOffset(bbv);
     }
 
-    private interface LengthSupplier extends Function<BitReader, Integer> {
+    /**
+     * How the offset of a field is determined.
+     */
+    private enum Offset {
+        CONSTANT,
+        AFTER_FIELD,
+        AFTER_PREVIOUS,
 
         /**
-         * A constant length for static fields.
+         * This is used when we don't want a field to support offsets.
          */
-        static LengthSupplier constant(int length) {
-            return new LengthSupplier() {
-
-                @Override
-                public Integer apply(BitReader t) {
-                    return length;
-                }
-
-                @Override
-                public boolean isDynamic() {
-                    return false;
-                }
-            };
-        }
+        NOT_SUPPORTED
+    }
 
-        boolean isDynamic();
+    /**
+     * Computes a dynamic field length.
+     */
+    private interface LengthSupplier {
+        int apply(BitReader t);
     }
 
     /**
@@ -387,17 +357,7 @@ public enum FieldDefs {
         }
 
         public static LengthSupplier lengthSupplier(FieldDefs numPubRestrictionsOffset) {
-            return new LengthSupplier() {
-                @Override
-                public Integer apply(BitReader t) {
-                    return calculateBitRangelength(t, numPubRestrictionsOffset.getOffset(t));
-                }
-
-                @Override
-                public boolean isDynamic() {
-                    return true;
-                }
-            };
+            return t -> calculateBitRangelength(t, numPubRestrictionsOffset.getOffset(t));
         }
     }
 
@@ -433,34 +393,16 @@ public enum FieldDefs {
         }
 
         public static LengthSupplier lengthSupplier(FieldDefs isRangeEncoding, FieldDefs maxVendorId) {
-            return new LengthSupplier() {
-                @Override
-                public Integer apply(BitReader t) {
-                    return calculateBitRangeLength(t, isRangeEncoding.getOffset(t), maxVendorId.getOffset(t));
-                }
-
-                @Override
-                public boolean isDynamic() {
-                    return true;
-                }
-            };
+            return t -> calculateBitRangeLength(t, isRangeEncoding.getOffset(t), maxVendorId.getOffset(t));
         }
 
         public static LengthSupplier lengthSupplierV1() {
-            return new LengthSupplier() {
-                @Override
-                public Integer apply(BitReader t) {
-                    int isRangeEncodingOffset = FieldDefs.V1_VENDOR_IS_RANGE_ENCODING.getOffset(t);
-                    if (!t.readBits1(isRangeEncodingOffset)) {
-                        return calculateBitLength(t, FieldDefs.V1_VENDOR_MAX_VENDOR_ID.getOffset(t));
-                    } else {
-                        return calculateRangeLength(t, FieldDefs.V1_VENDOR_NUM_ENTRIES.getOffset(t));
-                    }
-                }
-
-                @Override
-                public boolean isDynamic() {
-                    return true;
+            return t -> {
+                int isRangeEncodingOffset = FieldDefs.V1_VENDOR_IS_RANGE_ENCODING.getOffset(t);
+                if (!t.readBits1(isRangeEncodingOffset)) {
+                    return calculateBitLength(t, FieldDefs.V1_VENDOR_MAX_VENDOR_ID.getOffset(t));
+                } else {
+                    return calculateRangeLength(t, FieldDefs.V1_VENDOR_NUM_ENTRIES.getOffset(t));
                 }
             };
         }
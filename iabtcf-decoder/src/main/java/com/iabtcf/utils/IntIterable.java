@@ -5,6 +5,7 @@ import java.util.Iterator;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
@@ -28,12 +29,16 @@ import java.util.stream.StreamSupport;
  * #L%
  */
 
-import java.util.Arrays;
-
 /**
  * An int primitive memory optimized iterable.
  */
 public abstract class IntIterable implements Iterable<Integer> {
+    /**
+     * The characteristics of the default spliterator, the implementations in this package report
+     * stronger ones from their own spliterators.
+     */
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL;
+
     /**
      * Returns a set representation of the IntIterable.
      */
@@ -51,9 +56,47 @@ public abstract class IntIterable implements Iterable<Integer> {
      * Returns a stream representation of the IntIterable.
      */
     public IntStream toStream() {
-        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(
-                intIterator(),
-                Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+        return StreamSupport.intStream(intSpliterator(), false);
+    }
+
+    /**
+     * Returns the values in ascending order.
+     */
+    public int[] toIntArray() {
+        int[] values = new int[cardinality()];
+        int i = 0;
+        for (IntIterator ii = intIterator(); ii.hasNext();) {
+            values[i++] = ii.nextInt();
+        }
+        return values;
+    }
+
+    /**
+     * Performs the action for each value in ascending order without boxing.
+     */
+    public void forEachInt(IntConsumer action) {
+        for (IntIterator ii = intIterator(); ii.hasNext();) {
+            action.accept(ii.nextInt());
+        }
+    }
+
+    /**
+     * Returns the number of values, same as {@link #cardinality()}.
+     */
+    public int size() {
+        return cardinality();
+    }
+
+    /**
+     * Returns a sized spliterator over the values in ascending order.
+     */
+    public Spliterator.OfInt intSpliterator() {
+        return Spliterators.spliterator(intIterator(), cardinality(), CHARACTERISTICS);
+    }
+
+    @Override
+    public Spliterator<Integer> spliterator() {
+        return intSpliterator();
     }
 
     public boolean isEmpty() {
@@ -61,15 +104,60 @@ public abstract class IntIterable implements Iterable<Integer> {
     }
 
     public boolean containsAll(int... source) {
-        return Arrays
-                .stream(source)
-                .allMatch(this::contains);
+        for (int value : source) {
+            if (!contains(value)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public boolean containsAny(int... source) {
-        return Arrays
-                .stream(source)
-                .anyMatch(this::contains);
+        for (int value : source) {
+            if (contains(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of values.
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (IntIterator i = intIterator(); i.hasNext(); i.nextInt()) {
+            cardinality++;
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the values contained in both this and other.
+     */
+    public IntIterable and(IntIterable other) {
+        return SetOperations.and(this, other);
+    }
+
+    /**
+     * Returns the values contained in either this or other.
+     */
+    public IntIterable or(IntIterable other) {
+        return SetOperations.or(this, other);
+    }
+
+    /**
+     * Returns the values contained in this but not in other.
+     */
+    public IntIterable andNot(IntIterable other) {
+        return SetOperations.andNot(this, other);
+    }
+
+    /**
+     * Returns true if this and other have at least one value in common.
+     */
+    public boolean intersects(IntIterable other) {
+        return SetOperations.intersects(this, other);
     }
 
     public abstract boolean contains(int value);
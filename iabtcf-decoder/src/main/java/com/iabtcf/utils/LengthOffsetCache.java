@@ -20,38 +20,51 @@ package com.iabtcf.utils;
  * #L%
  */
 
-import java.util.EnumMap;
-import java.util.function.Function;
-
+/**
+ * Caches the dynamic offsets and lengths of the fields of a BitReader, indexed by field ordinal.
+ *
+ * Values are stored incremented by one so that 0 denotes an unresolved field. Resolving fields
+ * concurrently is benign since every thread computes the same value.
+ */
 class LengthOffsetCache {
-    private final BitReader bbv;
-    private final EnumMap<FieldDefs, Integer> lengthCache = new EnumMap<>(FieldDefs.class);
-    private final EnumMap<FieldDefs, Integer> offsetCache = new EnumMap<>(FieldDefs.class);
+    private static final int FIELD_COUNT = FieldDefs.values().length;
 
-    public LengthOffsetCache(BitReader bbv) {
-        this.bbv = bbv;
-    }
+    private int[] lengths;
+    private int[] offsets;
 
-    public Integer getLength(FieldDefs field, Function<BitReader, Integer> f) {
-        return memoize(field, lengthCache, f);
+    /**
+     * Returns the cached length or -1.
+     */
+    int getLength(int ordinal) {
+        return get(lengths, ordinal);
     }
 
-    public Integer getOffset(FieldDefs field, Function<BitReader, Integer> f) {
-        return memoize(field, offsetCache, f);
+    void putLength(int ordinal, int length) {
+        int[] values = lengths;
+        if (values == null) {
+            values = new int[FIELD_COUNT];
+            lengths = values;
+        }
+        values[ordinal] = length + 1;
     }
 
-    private Integer memoize(FieldDefs field, EnumMap<FieldDefs, Integer> cache,
-            Function<BitReader, Integer> f) {
-        if (!field.isDynamic()) {
-            return f.apply(bbv);
-        }
+    /**
+     * Returns the cached offset or -1.
+     */
+    int getOffset(int ordinal) {
+        return get(offsets, ordinal);
+    }
 
-        Integer rv = cache.get(field);
-        if (rv == null) {
-            rv = f.apply(bbv);
-            cache.put(field, rv);
+    void putOffset(int ordinal, int offset) {
+        int[] values = offsets;
+        if (values == null) {
+            values = new int[FIELD_COUNT];
+            offsets = values;
         }
+        values[ordinal] = offset + 1;
+    }
 
-        return rv;
+    private static int get(int[] values, int ordinal) {
+        return values == null ? -1 : values[ordinal] - 1;
     }
 }
@@ -0,0 +1,445 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable implementation of the IntIterable storing sorted, disjoint and non-adjacent ranges
+ * of values as pairs of inclusive start and end values. Sets made of a few long runs of values, as
+ * range encoded vendor fields usually are, take a fraction of the space of a bitfield.
+ *
+ * Equal sets have the same hash code as the equivalent {@link BitSetIntIterable} and are equal to
+ * it.
+ */
+public final class RangeIntIterable extends IntIterable {
+    public static final RangeIntIterable EMPTY = new RangeIntIterable(new int[0]);
+
+    private final int[] ranges;
+    private int hash;
+
+    private RangeIntIterable(int[] ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * Returns an IntIterable backed by normalized ranges, which must not be modified afterwards.
+     */
+    static RangeIntIterable wrap(int[] ranges) {
+        return ranges.length == 0 ? EMPTY : new RangeIntIterable(ranges);
+    }
+
+    /**
+     * Returns the backing ranges without copying them.
+     */
+    int[] ranges() {
+        return ranges;
+    }
+
+    /**
+     * Returns a builder with room for 'capacity' ranges.
+     *
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public static Builder newBuilder(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        return new Builder(capacity);
+    }
+
+    /**
+     * Returns the number of disjoint ranges of values in the set.
+     */
+    public int rangeCount() {
+        return ranges.length >>> 1;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        int low = 0;
+        int high = rangeCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ranges[mid << 1] > value) {
+                high = mid - 1;
+            } else if (ranges[(mid << 1) + 1] < value) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ranges.length == 0;
+    }
+
+    @Override
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            cardinality += ranges[i + 1] - ranges[i] + 1;
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the maximum value in the set or 0 if the set is empty.
+     */
+    public int max() {
+        return ranges.length == 0 ? 0 : ranges[ranges.length - 1];
+    }
+
+    @Override
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int value = ranges[i], end = ranges[i + 1];; value++) {
+                action.accept(value);
+                if (value == end) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Spliterator.OfInt intSpliterator() {
+        return new RangeSpliterator(ranges, 0, rangeCount(), ranges.length == 0 ? 0 : ranges[0],
+                ranges.length == 0 ? 0 : ranges[ranges.length - 1]);
+    }
+
+    @Override
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            int range = 0;
+            int current = ranges.length == 0 ? 0 : ranges[0];
+
+            @Override
+            public boolean hasNext() {
+                return range < ranges.length;
+            }
+
+            @Override
+            public Integer next() {
+                return nextInt();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int next = current;
+                if (next == ranges[range + 1]) {
+                    range += 2;
+                    if (range < ranges.length) {
+                        current = ranges[range];
+                    }
+                } else {
+                    current++;
+                }
+                return next;
+            }
+        };
+    }
+
+    /**
+     * Returns the hash code of the equivalent {@link BitSetIntIterable}.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = hash = bitSetHashCode();
+        }
+        return h;
+    }
+
+    private int bitSetHashCode() {
+        // BitSet.hashCode() over the words the ranges would occupy
+        long h = 1234;
+        int wordIndex = -1;
+        long word = 0;
+        for (int r = 0; r < ranges.length; r += 2) {
+            int start = ranges[r];
+            int end = ranges[r + 1];
+            for (int i = start >>> 6; i <= end >>> 6; i++) {
+                int low = Math.max(start, i << 6);
+                int high = Math.min(end, (i << 6) + 63);
+                if (i != wordIndex) {
+                    h ^= word * (wordIndex + 1);
+                    wordIndex = i;
+                    word = 0;
+                }
+                word |= (-1L << low) & (-1L >>> (63 - (high & 63)));
+            }
+        }
+        h ^= word * (wordIndex + 1);
+        return 31 + (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof RangeIntIterable) {
+            return Arrays.equals(ranges, ((RangeIntIterable) obj).ranges);
+        }
+        if (obj instanceof BitFieldIntIterable) {
+            return equals(((BitFieldIntIterable) obj).decoded());
+        }
+        if (obj instanceof BitSetIntIterable || obj instanceof WordIntIterable) {
+            return hashCode() == obj.hashCode() && sameValues((IntIterable) obj);
+        }
+        return false;
+    }
+
+    private boolean sameValues(IntIterable other) {
+        IntIterator i = intIterator();
+        IntIterator j = other.intIterator();
+        while (i.hasNext() && j.hasNext()) {
+            if (i.nextInt() != j.nextInt()) {
+                return false;
+            }
+        }
+        return !i.hasNext() && !j.hasNext();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (IntIterator i = intIterator(); i.hasNext();) {
+            sb.append(i.nextInt());
+            if (i.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * A spliterator over the values of the ranges 'index' inclusive to 'fence' exclusive, where
+     * the first range starts at 'from' and the last range ends at 'to'. Splits on range boundaries
+     * and splits a single remaining range in half.
+     */
+    private static final class RangeSpliterator implements Spliterator.OfInt {
+        private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED
+                | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED;
+
+        private final int[] ranges;
+        private final int fence;
+        private final int to;
+        private int index;
+        private int from;
+        private long size;
+
+        RangeSpliterator(int[] ranges, int index, int fence, int from, int to) {
+            this.ranges = ranges;
+            this.index = index;
+            this.fence = fence;
+            this.from = from;
+            this.to = to;
+
+            long size = 0;
+            for (int i = index; i < fence; i++) {
+                size += (long) end(i) - start(i) + 1;
+            }
+            this.size = size;
+        }
+
+        private int start(int range) {
+            return range == index ? from : ranges[range << 1];
+        }
+
+        private int end(int range) {
+            return range == fence - 1 ? to : ranges[(range << 1) + 1];
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= fence) {
+                return false;
+            }
+
+            int value = from;
+            if (value == end(index)) {
+                if (++index < fence) {
+                    from = ranges[index << 1];
+                }
+            } else {
+                from++;
+            }
+            size--;
+            action.accept(value);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            for (; index < fence; index++) {
+                for (int value = start(index), end = end(index);; value++) {
+                    action.accept(value);
+                    if (value == end) {
+                        break;
+                    }
+                }
+                if (index + 1 < fence) {
+                    from = ranges[(index + 1) << 1];
+                }
+            }
+            size = 0;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            RangeSpliterator prefix;
+            if (fence - index >= 2) {
+                int mid = (index + fence) >>> 1;
+                prefix = new RangeSpliterator(ranges, index, mid, from, ranges[((mid - 1) << 1) + 1]);
+                index = mid;
+                from = ranges[mid << 1];
+            } else if (size >= 2) {
+                int mid = from + (int) (size >>> 1);
+                prefix = new RangeSpliterator(ranges, index, index + 1, from, mid - 1);
+                from = mid;
+            } else {
+                return null;
+            }
+            size -= prefix.size;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+
+    /**
+     * Collects ranges in any order, overlapping and adjacent ranges are merged when built.
+     */
+    public static final class Builder {
+        private int[] ranges;
+        private int size;
+
+        private Builder(int capacity) {
+            this.ranges = new int[capacity << 1];
+        }
+
+        /**
+         * @throws IllegalArgumentException if value is negative
+         */
+        public Builder add(int value) {
+            return add(value, value + 1);
+        }
+
+        /**
+         * Adds the values from 'fromValue' inclusive to 'toValue' exclusive.
+         *
+         * @throws IllegalArgumentException if fromValue is negative or greater than toValue
+         */
+        public Builder add(int fromValue, int toValue) {
+            if (fromValue < 0 || fromValue > toValue) {
+                throw new IllegalArgumentException("fromValue: " + fromValue + ", toValue: " + toValue);
+            }
+            if (ranges == null) {
+                throw new IllegalStateException("Builder has already been built");
+            }
+            if (fromValue == toValue) {
+                return this;
+            }
+
+            if (size == ranges.length) {
+                ranges = Arrays.copyOf(ranges, Math.max(2, size << 1));
+            }
+            ranges[size++] = fromValue;
+            ranges[size++] = toValue - 1;
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException if the builder has already been built
+         */
+        public RangeIntIterable build() {
+            if (ranges == null) {
+                throw new IllegalStateException("Builder has already been built");
+            }
+
+            if (!isNormalized()) {
+                normalize();
+            }
+            int[] value = size == ranges.length ? ranges : Arrays.copyOf(ranges, size);
+            ranges = null;
+            return new RangeIntIterable(value);
+        }
+
+        private boolean isNormalized() {
+            for (int i = 2; i < size; i += 2) {
+                // disjoint and not adjacent to the previous range
+                if (ranges[i] <= ranges[i - 1] + 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Sorts the ranges by start value and merges overlapping and adjacent ranges.
+         */
+        private void normalize() {
+            long[] sorted = new long[size >>> 1];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = ((long) ranges[i << 1] << 32) | ranges[(i << 1) + 1];
+            }
+            Arrays.sort(sorted);
+
+            size = 0;
+            for (long range : sorted) {
+                int start = (int) (range >>> 32);
+                int end = (int) range;
+                if (size > 0 && start <= ranges[size - 1] + 1) {
+                    ranges[size - 1] = Math.max(ranges[size - 1], end);
+                } else {
+                    ranges[size++] = start;
+                    ranges[size++] = end;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Set operations on IntIterables. Word and BitSet backed operands are combined a word at a time,
+ * range backed operands are either merged range by range or expanded into words.
+ */
+final class SetOperations {
+    private SetOperations() {
+    }
+
+    static IntIterable and(IntIterable a, IntIterable b) {
+        a = unwrap(a);
+        b = unwrap(b);
+        if (a instanceof RangeIntIterable && b instanceof RangeIntIterable) {
+            return andRanges(((RangeIntIterable) a).ranges(), ((RangeIntIterable) b).ranges());
+        }
+
+        long[] x = wordsOf(a);
+        long[] y = wordsOf(b);
+        long[] words = new long[Math.min(x.length, y.length)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = x[i] & y[i];
+        }
+        return WordIntIterable.wrap(words);
+    }
+
+    static IntIterable or(IntIterable a, IntIterable b) {
+        a = unwrap(a);
+        b = unwrap(b);
+        if (a instanceof RangeIntIterable && b instanceof RangeIntIterable) {
+            int[] x = ((RangeIntIterable) a).ranges();
+            int[] y = ((RangeIntIterable) b).ranges();
+            RangeIntIterable.Builder builder = RangeIntIterable.newBuilder((x.length + y.length) >>> 1);
+            addRanges(builder, x);
+            addRanges(builder, y);
+            return builder.build();
+        }
+
+        long[] x = wordsOf(a);
+        long[] y = wordsOf(b);
+        if (x.length < y.length) {
+            long[] t = x;
+            x = y;
+            y = t;
+        }
+        long[] words = Arrays.copyOf(x, x.length);
+        for (int i = 0; i < y.length; i++) {
+            words[i] |= y[i];
+        }
+        return WordIntIterable.wrap(words);
+    }
+
+    static IntIterable andNot(IntIterable a, IntIterable b) {
+        a = unwrap(a);
+        b = unwrap(b);
+        long[] x = wordsOf(a);
+        long[] y = wordsOf(b);
+        long[] words = Arrays.copyOf(x, x.length);
+        for (int i = 0, n = Math.min(x.length, y.length); i < n; i++) {
+            words[i] &= ~y[i];
+        }
+        return WordIntIterable.wrap(words);
+    }
+
+    static boolean intersects(IntIterable a, IntIterable b) {
+        a = unwrap(a);
+        b = unwrap(b);
+        if (a instanceof RangeIntIterable) {
+            if (b instanceof RangeIntIterable) {
+                return intersectsRanges(((RangeIntIterable) a).ranges(), ((RangeIntIterable) b).ranges());
+            }
+            if (b instanceof WordIntIterable) {
+                return intersectsWords(((RangeIntIterable) a).ranges(), ((WordIntIterable) b).words());
+            }
+        } else if (b instanceof RangeIntIterable && a instanceof WordIntIterable) {
+            return intersectsWords(((RangeIntIterable) b).ranges(), ((WordIntIterable) a).words());
+        }
+
+        if (isWordBacked(a) && isWordBacked(b)) {
+            long[] x = wordsOf(a);
+            long[] y = wordsOf(b);
+            for (int i = 0, n = Math.min(x.length, y.length); i < n; i++) {
+                if ((x[i] & y[i]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        for (IntIterator i = a.intIterator(); i.hasNext();) {
+            if (b.contains(i.nextInt())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static IntIterable unwrap(IntIterable ii) {
+        return ii instanceof BitFieldIntIterable ? ((BitFieldIntIterable) ii).decoded() : ii;
+    }
+
+    private static boolean isWordBacked(IntIterable ii) {
+        return ii instanceof WordIntIterable || ii instanceof BitSetIntIterable;
+    }
+
+    /**
+     * Returns the words of the IntIterable in the layout of {@link BitSet#toLongArray()}. The words
+     * of a WordIntIterable are returned without copying and must not be modified.
+     */
+    static long[] wordsOf(IntIterable ii) {
+        if (ii instanceof WordIntIterable) {
+            return ((WordIntIterable) ii).words();
+        }
+        if (ii instanceof BitSetIntIterable) {
+            return ((BitSetIntIterable) ii).bitSet().toLongArray();
+        }
+        if (ii instanceof RangeIntIterable) {
+            int[] ranges = ((RangeIntIterable) ii).ranges();
+            if (ranges.length == 0) {
+                return new long[0];
+            }
+            WordIntIterable.Builder builder = WordIntIterable.newBuilder(ranges[ranges.length - 1]);
+            for (int i = 0; i < ranges.length; i += 2) {
+                builder.add(ranges[i], ranges[i + 1] + 1);
+            }
+            return builder.build().words();
+        }
+
+        BitSet bs = new BitSet();
+        for (IntIterator i = ii.intIterator(); i.hasNext();) {
+            bs.set(i.nextInt());
+        }
+        return bs.toLongArray();
+    }
+
+    private static void addRanges(RangeIntIterable.Builder builder, int[] ranges) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            builder.add(ranges[i], ranges[i + 1] + 1);
+        }
+    }
+
+    private static RangeIntIterable andRanges(int[] x, int[] y) {
+        int[] ranges = new int[x.length + y.length];
+        int size = 0;
+        for (int i = 0, j = 0; i < x.length && j < y.length;) {
+            int start = Math.max(x[i], y[j]);
+            int end = Math.min(x[i + 1], y[j + 1]);
+            if (start <= end) {
+                ranges[size++] = start;
+                ranges[size++] = end;
+            }
+            if (x[i + 1] < y[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        // the intersection of normalized ranges is normalized
+        return RangeIntIterable.wrap(Arrays.copyOf(ranges, size));
+    }
+
+    private static boolean intersectsRanges(int[] x, int[] y) {
+        for (int i = 0, j = 0; i < x.length && j < y.length;) {
+            if (Math.max(x[i], y[j]) <= Math.min(x[i + 1], y[j + 1])) {
+                return true;
+            }
+            if (x[i + 1] < y[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        return false;
+    }
+
+    private static boolean intersectsWords(int[] ranges, long[] words) {
+        for (int r = 0; r < ranges.length; r += 2) {
+            int start = ranges[r];
+            int end = ranges[r + 1];
+            for (int i = start >>> 6, last = Math.min(end >>> 6, words.length - 1); i <= last; i++) {
+                int low = Math.max(start, i << 6);
+                int high = Math.min(end, (i << 6) + 63);
+                if ((words[i] & (-1L << low) & (-1L >>> (63 - (high & 63)))) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,476 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable implementation of the IntIterable backed by an array of words in the layout of
+ * {@link BitSet#toLongArray()}, value i is present when bit (i % 64) of word (i / 64) is set.
+ *
+ * Instances take ownership of their words instead of copying them. Equal sets have the same hash
+ * code as the equivalent {@link BitSetIntIterable} and {@link RangeIntIterable} and are equal to
+ * them.
+ */
+public final class WordIntIterable extends IntIterable {
+    public static final WordIntIterable EMPTY = new WordIntIterable(new long[0]);
+
+    private static final int FLYWEIGHT_BITS = 10;
+    private static final AtomicReferenceArray<WordIntIterable> FLYWEIGHTS =
+            new AtomicReferenceArray<>(1 << FLYWEIGHT_BITS);
+
+    private final long[] words;
+
+    private WordIntIterable(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Returns an IntIterable backed by the words. The words must not be modified afterwards.
+     */
+    public static WordIntIterable wrap(long[] words) {
+        return new WordIntIterable(words);
+    }
+
+    /**
+     * Returns a shared instance for the values between 0 and 63 set in the word. Instances come
+     * from a bounded, direct mapped table so the small sets that recur in most consent strings, such
+     * as purposes and special features, are not allocated again once seen.
+     */
+    public static WordIntIterable valueOf(long word) {
+        if (word == 0) {
+            return EMPTY;
+        }
+
+        int h = (int) (word ^ (word >>> 32)) * 0x9E3779B9;
+        int index = h >>> (Integer.SIZE - FLYWEIGHT_BITS);
+        WordIntIterable value = FLYWEIGHTS.get(index);
+        if (value == null || value.words[0] != word) {
+            value = new WordIntIterable(new long[] {word});
+            FLYWEIGHTS.lazySet(index, value);
+        }
+        return value;
+    }
+
+    public static WordIntIterable from(BitSet bs) {
+        return new WordIntIterable(bs.toLongArray());
+    }
+
+    /**
+     * Returns a builder for sets of values between 0 and maxValue inclusive.
+     *
+     * @throws IllegalArgumentException if maxValue is negative
+     */
+    public static Builder newBuilder(int maxValue) {
+        if (maxValue < 0) {
+            throw new IllegalArgumentException("maxValue must not be negative: " + maxValue);
+        }
+        return new Builder(maxValue);
+    }
+
+    public BitSet toBitSet() {
+        return BitSet.valueOf(words);
+    }
+
+    public long[] toLongArray() {
+        return words.clone();
+    }
+
+    /**
+     * Returns the backing words without copying them.
+     */
+    long[] words() {
+        return words;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = value >>> 6;
+        return index < words.length && (words[index] & (1L << value)) != 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return wordsInUse() == 0;
+    }
+
+    @Override
+    public int cardinality() {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the maximum value in the set or 0 if the set is empty.
+     */
+    public int max() {
+        int n = wordsInUse();
+        if (n == 0) {
+            return 0;
+        }
+        return (n << 6) - 1 - Long.numberOfLeadingZeros(words[n - 1]);
+    }
+
+    /**
+     * Returns the number of words up to and including the last non-zero word.
+     */
+    private int wordsInUse() {
+        int n = words.length;
+        while (n > 0 && words[n - 1] == 0) {
+            n--;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the first value greater than or equal to 'from' or -1 if there is none.
+     */
+    private int nextSetBit(int from) {
+        int index = from >>> 6;
+        if (index >= words.length) {
+            return -1;
+        }
+
+        long word = words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    @Override
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < words.length; i++) {
+            for (long word = words[i]; word != 0; word &= word - 1) {
+                action.accept((i << 6) + Long.numberOfTrailingZeros(word));
+            }
+        }
+    }
+
+    @Override
+    public Spliterator.OfInt intSpliterator() {
+        return new WordSpliterator(words);
+    }
+
+    @Override
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            int currentIndex = nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return currentIndex != -1;
+            }
+
+            @Override
+            public Integer next() {
+                return nextInt();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int next = currentIndex;
+                currentIndex = next == Integer.MAX_VALUE ? -1 : nextSetBit(next + 1);
+                return next;
+            }
+        };
+    }
+
+    /**
+     * Returns the hash code of the equivalent {@link BitSetIntIterable}.
+     */
+    @Override
+    public int hashCode() {
+        // BitSet.hashCode(), trailing zero words do not contribute
+        long h = 1234;
+        for (int i = words.length; --i >= 0;) {
+            h ^= words[i] * (i + 1);
+        }
+        return 31 + (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof BitSetIntIterable) {
+            return equalsBitSet(((BitSetIntIterable) obj).bitSet());
+        }
+        if (obj instanceof RangeIntIterable || obj instanceof BitFieldIntIterable) {
+            return obj.equals(this);
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+
+        WordIntIterable other = (WordIntIterable) obj;
+        int n = wordsInUse();
+        if (n != other.wordsInUse()) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (words[i] != other.words[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equalsBitSet(BitSet bs) {
+        int n = wordsInUse();
+        if (bs.length() != (n == 0 ? 0 : max() + 1)) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            long word = 0;
+            for (int j = bs.nextSetBit(i << 6); j >= 0 && j < (i + 1) << 6; j = bs.nextSetBit(j + 1)) {
+                word |= 1L << j;
+            }
+            if (word != words[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (IntIterator i = intIterator(); i.hasNext();) {
+            sb.append(i.nextInt());
+            if (i.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * A spliterator over words that splits on word boundaries.
+     */
+    static final class WordSpliterator implements Spliterator.OfInt {
+        private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED
+                | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED;
+
+        private final long[] words;
+        private final int fence;
+        private int index;
+        // the unvisited bits of words[index]
+        private long word;
+        private long size;
+
+        WordSpliterator(long[] words) {
+            this(words, 0, words.length == 0 ? 0 : words[0], words.length);
+        }
+
+        private WordSpliterator(long[] words, int index, long word, int fence) {
+            this.words = words;
+            this.index = index;
+            this.word = word;
+            this.fence = fence;
+
+            long size = index < fence ? Long.bitCount(word) : 0;
+            for (int i = index + 1; i < fence; i++) {
+                size += Long.bitCount(words[i]);
+            }
+            this.size = size;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            while (word == 0) {
+                if (++index >= fence) {
+                    index = fence;
+                    return false;
+                }
+                word = words[index];
+            }
+
+            int value = (index << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            size--;
+            action.accept(value);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            long w = word;
+            while (index < fence) {
+                for (; w != 0; w &= w - 1) {
+                    action.accept((index << 6) + Long.numberOfTrailingZeros(w));
+                }
+                if (++index < fence) {
+                    w = words[index];
+                }
+            }
+            word = 0;
+            size = 0;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            if (fence - index < 2) {
+                return null;
+            }
+
+            int mid = (index + fence + 1) >>> 1;
+            WordSpliterator prefix = new WordSpliterator(words, index, word, mid);
+            index = mid;
+            word = words[mid];
+            size -= prefix.size;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+
+    /**
+     * Builds a WordIntIterable in place, the words allocated by the builder are handed over to the
+     * built instance so a builder can only be built once.
+     */
+    public static final class Builder {
+        private long[] words;
+
+        private Builder(int maxValue) {
+            this.words = new long[(maxValue >>> 6) + 1];
+        }
+
+        /**
+         * @throws IndexOutOfBoundsException if value is negative or greater than maxValue
+         */
+        public Builder add(int value) {
+            words()[value >>> 6] |= 1L << value;
+            return this;
+        }
+
+        /**
+         * Adds the values from 'fromValue' inclusive to 'toValue' exclusive.
+         *
+         * @throws IndexOutOfBoundsException if the range is not between 0 and maxValue
+         */
+        public Builder add(int fromValue, int toValue) {
+            checkRange(fromValue, toValue);
+            long[] words = words();
+            if (fromValue == toValue) {
+                return this;
+            }
+
+            int first = fromValue >>> 6;
+            int last = (toValue - 1) >>> 6;
+            long firstMask = -1L << fromValue;
+            long lastMask = -1L >>> -toValue;
+            if (first == last) {
+                words[first] |= firstMask & lastMask;
+                return this;
+            }
+
+            words[first] |= firstMask;
+            for (int i = first + 1; i < last; i++) {
+                words[i] = -1L;
+            }
+            words[last] |= lastMask;
+            return this;
+        }
+
+        /**
+         * Flips the values from 'fromValue' inclusive to 'toValue' exclusive.
+         *
+         * @throws IndexOutOfBoundsException if the range is not between 0 and maxValue
+         */
+        public Builder flip(int fromValue, int toValue) {
+            checkRange(fromValue, toValue);
+            long[] words = words();
+            if (fromValue == toValue) {
+                return this;
+            }
+
+            int first = fromValue >>> 6;
+            int last = (toValue - 1) >>> 6;
+            long firstMask = -1L << fromValue;
+            long lastMask = -1L >>> -toValue;
+            if (first == last) {
+                words[first] ^= firstMask & lastMask;
+                return this;
+            }
+
+            words[first] ^= firstMask;
+            for (int i = first + 1; i < last; i++) {
+                words[i] ^= -1L;
+            }
+            words[last] ^= lastMask;
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException if the builder has already been built
+         */
+        public WordIntIterable build() {
+            WordIntIterable value = new WordIntIterable(words());
+            words = null;
+            return value;
+        }
+
+        private long[] words() {
+            if (words == null) {
+                throw new IllegalStateException("Builder has already been built");
+            }
+            return words;
+        }
+
+        private void checkRange(int fromValue, int toValue) {
+            if (fromValue < 0 || fromValue > toValue || toValue > words().length << 6) {
+                throw new IndexOutOfBoundsException("fromValue: " + fromValue + ", toValue: " + toValue);
+            }
+        }
+    }
+}
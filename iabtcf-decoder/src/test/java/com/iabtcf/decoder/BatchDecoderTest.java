@@ -0,0 +1,156 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.iabtcf.exceptions.ByteParseException;
+import com.iabtcf.exceptions.UnsupportedVersionException;
+import com.iabtcf.utils.FieldDefs;
+
+public class BatchDecoderTest {
+    private static final String[] CONSENTS = {
+            "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA",
+            "COwxsONOwxsONKpAAAENAdCAAMAAAAAAAAAAAAAAAAAA",
+            "CA==",
+            "COv__-wOv__-wC2AAAENAPCgAAAAAAAAAAAAA_wAQA_gEBABAEAAAA",
+            "BOv5oL3Ov5oL3ABABBAAABAAAAABMAAA",
+            "DOv5oL3Ov5oL3ABABBAAABAAAAABMAAA",
+            "C*AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"
+    };
+
+    private static List<String> batch(int size) {
+        List<String> consentStrings = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            consentStrings.add(CONSENTS[i % CONSENTS.length]);
+        }
+        return consentStrings;
+    }
+
+    private static void assertResults(List<String> consentStrings, List<DecodeResult> results) {
+        assertEquals(consentStrings.size(), results.size());
+
+        for (int i = 0; i < results.size(); i++) {
+            DecodeResult result = results.get(i);
+            assertEquals(consentStrings.get(i), result.getConsentString());
+
+            switch (i % CONSENTS.length) {
+                case 2:
+                    assertFalse(result.isSuccess());
+                    assertTrue(result.getError() instanceof ByteParseException);
+                    break;
+                case 5:
+                    assertTrue(result.getError() instanceof UnsupportedVersionException);
+                    break;
+                case 6:
+                    assertTrue(result.getError() instanceof IllegalArgumentException);
+                    break;
+                default:
+                    assertTrue(result.isSuccess());
+                    assertNull(result.getError());
+                    assertEquals(TCString.decode(consentStrings.get(i)), result.getTCString());
+                    break;
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeAllList() {
+        List<String> consentStrings = batch(1000);
+        assertResults(consentStrings, TCString.decodeAll(consentStrings));
+    }
+
+    @Test
+    public void testDecodeAllExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int size : new int[] {0, 1, 7, 1000}) {
+                List<String> consentStrings = batch(size);
+                assertResults(consentStrings, TCString.decodeAll(consentStrings, executor));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDecodeAllStream() {
+        List<String> consentStrings = batch(1000);
+        assertResults(consentStrings,
+                TCString.decodeAll(consentStrings.stream()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(TCString.decodeAll(Collections.emptyList()).isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetTCStringOfFailure() {
+        TCString.decodeAll(Collections.singletonList("CA==")).get(0).getTCString();
+    }
+
+    @Test
+    public void testNullConsentString() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<String> consentStrings = Arrays.asList(CONSENTS[0], null, CONSENTS[1]);
+            List<DecodeResult> results = TCString.decodeAll(consentStrings, executor);
+
+            assertTrue(results.get(0).isSuccess());
+            assertTrue(results.get(1).getError() instanceof NullPointerException);
+            assertNull(results.get(1).getConsentString());
+            assertTrue(results.get(2).isSuccess());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConfiguredDecoder() {
+        VendorSetInterner interner = new VendorSetInterner(100);
+        TCStringDecoder decoder = TCStringDecoder.newBuilder()
+                .projection(Projection.of(FieldDefs.CORE_VENDOR_BITRANGE_FIELD))
+                .vendorSetInterner(interner)
+                .build();
+
+        List<String> consentStrings = Arrays.asList(CONSENTS[0], CONSENTS[1], CONSENTS[0], CONSENTS[3]);
+        List<DecodeResult> results = decoder.decodeAll(consentStrings);
+        for (int i = 0; i < consentStrings.size(); i++) {
+            assertEquals(TCString.decode(consentStrings.get(i)), results.get(i).getTCString());
+        }
+        assertEquals(results, decoder.decodeAll(consentStrings.stream()).collect(Collectors.toList()));
+        assertTrue(interner.getHitCount() > 0);
+    }
+}
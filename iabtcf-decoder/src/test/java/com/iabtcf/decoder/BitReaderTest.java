@@ -40,6 +40,7 @@ import org.junit.Test;
 import com.iabtcf.decoder.TCString;
 import com.iabtcf.exceptions.ByteParseException;
 import com.iabtcf.utils.BitReader;
+import com.iabtcf.utils.CharSequenceBitReader;
 import com.iabtcf.utils.FieldDefs;
 
 public class BitReaderTest {
@@ -627,6 +628,129 @@ public class BitReaderTest {
         assertEquals(largeValue5, result);
     }
 
+    @Test
+    public void testCharSequenceRandom() {
+        for (int n = 0; n < 100; n++) {
+            byte[] rb = new byte[1 + r.nextInt(16)];
+            r.nextBytes(rb);
+            String str = Base64.getUrlEncoder().withoutPadding().encodeToString(rb);
+
+            BitReader expected = new BitReader(rb);
+            BitReader actual = new CharSequenceBitReader(str);
+            int length = rb.length * 8;
+
+            for (int i = 0; i < length; i++) {
+                assertEquals(expected.readBits1(i), actual.readBits1(i));
+                if (i + 2 <= length) {
+                    assertEquals(expected.readBits2(i), actual.readBits2(i));
+                }
+                if (i + 3 <= length) {
+                    assertEquals(expected.readBits3(i), actual.readBits3(i));
+                }
+                if (i + 6 <= length) {
+                    assertEquals(expected.readBits6(i), actual.readBits6(i));
+                }
+                if (i + 12 <= length) {
+                    assertEquals(expected.readBits12(i), actual.readBits12(i));
+                }
+                if (i + 16 <= length) {
+                    assertEquals(expected.readBits16(i), actual.readBits16(i));
+                }
+                if (i + 24 <= length) {
+                    assertEquals(expected.readBits24(i), actual.readBits24(i));
+                }
+                if (i + 36 <= length) {
+                    assertEquals(expected.readBits36(i), actual.readBits36(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCharSequenceSegment() {
+        String str = "BOvalCcOvZ7NaABABBAAABAAAAAAEA";
+        BitReader bv = new CharSequenceBitReader("xx." + str + ".yy", 3, 3 + str.length());
+
+        assertEquals(1, bv.readBits6(0));
+        assertEquals(1, bv.readBits12(6 + 36 + 36));
+        assertEquals(1, bv.readBits12(6 + 36 + 36 + 12));
+    }
+
+    @Test
+    public void testCharSequencePadding() {
+        BitReader bv = new CharSequenceBitReader("CA==");
+        assertEquals(2, bv.readBits6(0));
+        assertEquals(0, bv.readBits2(6));
+    }
+
+    @Test(expected = ByteParseException.class)
+    public void testCharSequenceReadBeyondBuffer() {
+        // 2 characters only encode a single byte
+        BitReader bv = new CharSequenceBitReader("Bg");
+        bv.readBits6(6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCharSequenceIllegalCharacter() {
+        BitReader bv = new CharSequenceBitReader("B+AA");
+        bv.readBits12(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCharSequenceIllegalLength() {
+        new CharSequenceBitReader("BAAAA");
+    }
+
+    @Test
+    public void testReadBitsRandom() {
+        for (int n = 0; n < 100; n++) {
+            byte[] rb = new byte[1 + r.nextInt(24)];
+            r.nextBytes(rb);
+            String str = Base64.getUrlEncoder().withoutPadding().encodeToString(rb);
+            int length = rb.length * 8;
+
+            for (BitReader bv : new BitReader[] {new BitReader(rb), new CharSequenceBitReader(str)}) {
+                for (int i = 0; i < length; i++) {
+                    for (int j = 1; j <= Long.SIZE && i + j <= length; j++) {
+                        long expect = 0;
+                        for (int k = 0; k < j; k++) {
+                            expect = (expect << 1) | (bv.readBits1(i + k) ? 1 : 0);
+                        }
+                        assertEquals(String.format("%d %d", i, j), expect, bv.readBits(i, j));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadWordsRandom() {
+        for (int n = 0; n < 100; n++) {
+            byte[] rb = new byte[1 + r.nextInt(48)];
+            r.nextBytes(rb);
+            String str = Base64.getUrlEncoder().withoutPadding().encodeToString(rb);
+            int offset = r.nextInt(rb.length * 8);
+            int length = r.nextInt(rb.length * 8 - offset + 1);
+            int startIndex = r.nextInt(Long.SIZE * 2);
+
+            BitSet expect = new BitSet();
+            for (int i = 0; i < length; i++) {
+                if (new BitReader(rb).readBits1(offset + i)) {
+                    expect.set(startIndex + i);
+                }
+            }
+
+            assertEquals(expect, BitSet.valueOf(new BitReader(rb).readWords(offset, length, startIndex)));
+            assertEquals(expect,
+                    BitSet.valueOf(new CharSequenceBitReader(str).readWords(offset, length, startIndex)));
+        }
+    }
+
+    @Test(expected = ByteParseException.class)
+    public void testReadWordsBeyondBuffer() {
+        new BitReader(new byte[16]).readWords(8, 128, 0);
+    }
+
     @Test(expected = ByteParseException.class)
     public void testReadBeyondBuffer() {
         // bit pattern: 0000011
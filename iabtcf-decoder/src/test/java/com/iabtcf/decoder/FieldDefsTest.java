@@ -114,4 +114,33 @@ public class FieldDefsTest {
         assertEquals(12 + (17 * (1 + 16)) + (2 * (1 + 16 + 16)),
                 FieldDefs.V1_VENDOR_BITRANGE_FIELD.getLength(bitVector));
     }
+
+    @Test
+    public void testCoreFieldsContiguous() {
+        String[] tcStrings = {
+                "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA",
+                "COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA",
+                "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA"
+        };
+
+        for (String tcString : tcStrings) {
+            BitReader bitVector = new BitReader(Base64.getUrlDecoder().decode(tcString));
+
+            // read the fields twice, the second time from the cache
+            for (int i = 0; i < 2; i++) {
+                assertEquals(201, FieldDefs.CORE_PUBLISHER_CC.getOffset(bitVector));
+
+                for (FieldDefs field = FieldDefs.CORE_CREATED; field != FieldDefs.OOB_SEGMENT_TYPE;
+                        field = FieldDefs.values()[field.ordinal() + 1]) {
+                    FieldDefs previous = FieldDefs.values()[field.ordinal() - 1];
+                    assertEquals(field.name(), previous.getEnd(bitVector), field.getOffset(bitVector));
+                }
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testOffsetNotSupported() {
+        FieldDefs.NUM_ENTRIES.getOffset(new BitReader(new byte[8]));
+    }
 }
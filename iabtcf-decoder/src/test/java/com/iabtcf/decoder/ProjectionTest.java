@@ -0,0 +1,112 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static com.iabtcf.test.utils.IntIterableMatcher.matchInts;
+import static com.iabtcf.utils.FieldDefs.AV_VENDOR_BITRANGE_FIELD;
+import static com.iabtcf.utils.FieldDefs.CORE_PUB_RESTRICTION_ENTRY;
+import static com.iabtcf.utils.FieldDefs.CORE_PURPOSES_CONSENT;
+import static com.iabtcf.utils.FieldDefs.CORE_VENDOR_BITRANGE_FIELD;
+import static com.iabtcf.utils.FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD;
+import static com.iabtcf.utils.FieldDefs.PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.iabtcf.exceptions.ByteParseException;
+import com.iabtcf.utils.FieldDefs;
+
+public class ProjectionTest {
+    private static final String CONSENT =
+            "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA"
+                    + ".IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgA";
+
+    @Test
+    public void testProjectedFields() {
+        Projection projection = Projection.of(CORE_PURPOSES_CONSENT, CORE_VENDOR_BITRANGE_FIELD,
+                CORE_VENDOR_LI_BITRANGE_FIELD, CORE_PUB_RESTRICTION_ENTRY, AV_VENDOR_BITRANGE_FIELD);
+
+        TCString projected = TCString.decode(CONSENT, projection);
+        TCString full = TCString.decode(CONSENT);
+
+        assertEquals(full.getPurposesConsent(), projected.getPurposesConsent());
+        assertEquals(full.getVendorConsent(), projected.getVendorConsent());
+        assertEquals(full.getVendorLegitimateInterest(), projected.getVendorLegitimateInterest());
+        assertEquals(full.getPublisherRestrictions(), projected.getPublisherRestrictions());
+        assertEquals(full.getAllowedVendors(), projected.getAllowedVendors());
+
+        // fields outside of the projection are decoded lazily
+        assertEquals(full, projected);
+    }
+
+    @Test
+    public void testSkipsUnusedSegments() {
+        // the disclosed vendor segment is truncated
+        String consent = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA.IB";
+
+        TCString tcString = TCString.decode(consent, Projection.of(CORE_VENDOR_BITRANGE_FIELD));
+        assertThat(tcString.getVendorConsent(), matchInts());
+        assertThat(tcString.getCustomPurposesLITransparency(), matchInts());
+    }
+
+    @Test(expected = ByteParseException.class)
+    public void testTruncatedSegment() {
+        TCString.decode("COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA.IB");
+    }
+
+    @Test
+    public void testSegmentField() {
+        String consent = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA."
+                + TCStringV2Test.base64FromBitString("011" + "000000000000000000000101" + "000000000000000000010000"
+                        + "000011" + "101" + "010" + "0");
+
+        TCString tcString = TCString.decode(consent, Projection.of(PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY));
+        assertThat(tcString.getCustomPurposesLITransparency(), matchInts(2));
+        assertThat(tcString.getCustomPurposesConsent(), matchInts(1, 3));
+        assertThat(tcString.getPubPurposesConsent(), matchInts(22, 24));
+    }
+
+    @Test
+    public void testNone() {
+        TCString tcString = TCString.decode(CONSENT, Projection.NONE);
+        assertEquals(TCString.decode(CONSENT), tcString);
+        assertTrue(Projection.NONE.getFields().isEmpty());
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(Projection.of(CORE_PURPOSES_CONSENT, CORE_VENDOR_BITRANGE_FIELD),
+                Projection.of(CORE_VENDOR_BITRANGE_FIELD, CORE_PURPOSES_CONSENT));
+        assertEquals(Projection.ALL, Projection.of(Projection.ALL.getFields()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidField() {
+        Projection.of(FieldDefs.CORE_VENDOR_MAX_VENDOR_ID);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        Projection.ALL.getFields().clear();
+    }
+}
@@ -0,0 +1,158 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.Test;
+
+import com.iabtcf.exceptions.ByteParseException;
+
+public class TCStringCacheTest {
+    private static final String CONSENT_A = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA";
+    private static final String CONSENT_B = "COwxsONOwxsONKpAAAENAdCAAMAAAAAAAAAAAAAAAAAA";
+    private static final String CONSENT_C = "COv__-wOv__-wC2AAAENAPCgAAAAAAAAAAAAA_wAQA_gEBABAEAAAA";
+
+    @Test
+    public void testHitAndMiss() {
+        TCStringCache cache = TCStringCache.newBuilder().build();
+
+        TCString tcString = cache.get(CONSENT_A);
+        assertEquals(TCString.decode(CONSENT_A), tcString);
+        assertSame(tcString, cache.get(CONSENT_A));
+        assertSame(tcString, cache.getIfPresent(CONSENT_A));
+        assertNull(cache.getIfPresent(CONSENT_B));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        TCStringCache cache = TCStringCache.newBuilder().maximumSize(2).concurrencyLevel(1).build();
+
+        cache.get(CONSENT_A);
+        cache.get(CONSENT_B);
+        cache.get(CONSENT_A);
+        cache.get(CONSENT_C);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.getIfPresent(CONSENT_B));
+        assertEquals(TCString.decode(CONSENT_A), cache.getIfPresent(CONSENT_A));
+        assertEquals(TCString.decode(CONSENT_C), cache.getIfPresent(CONSENT_C));
+    }
+
+    @Test
+    public void testExpireAfterLastUpdated() {
+        Instant lastUpdated = TCString.decode(CONSENT_A).getLastUpdated();
+        Clock clock = Clock.fixed(lastUpdated.plus(Duration.ofDays(10)), ZoneOffset.UTC);
+
+        TCStringCache cache = TCStringCache.newBuilder().expireAfterLastUpdated(Duration.ofDays(30)).clock(clock)
+                .build();
+        TCString tcString = cache.get(CONSENT_A);
+        assertSame(tcString, cache.get(CONSENT_A));
+
+        TCStringCache expiring = TCStringCache.newBuilder().expireAfterLastUpdated(Duration.ofDays(5)).clock(clock)
+                .build();
+        assertNotSame(expiring.get(CONSENT_A), expiring.get(CONSENT_A));
+        assertEquals(0, expiring.size());
+        assertEquals(2, expiring.getMissCount());
+    }
+
+    @Test
+    public void testDecodeFailureNotCached() {
+        TCStringCache cache = TCStringCache.newBuilder().build();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get("CA==");
+                fail();
+            } catch (ByteParseException e) {
+                // expected
+            }
+        }
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidate() {
+        TCStringCache cache = TCStringCache.newBuilder().build();
+        cache.get(CONSENT_A);
+        cache.get(CONSENT_B);
+
+        cache.invalidate(CONSENT_A);
+        assertNull(cache.getIfPresent(CONSENT_A));
+        assertEquals(1, cache.size());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaximumSize() {
+        TCStringCache.newBuilder().maximumSize(0);
+    }
+
+    /**
+     * Returns a v2 consent string whose vendor consent bitfield of 16 vendors holds 'vendorBits'.
+     */
+    static String consentWithVendors(int vendorBits) {
+        StringBuilder bits = new StringBuilder("000010");
+        for (int i = 6; i < 213; i++) {
+            bits.append('0');
+        }
+        bits.append("0000000000010000").append('0');
+        for (int i = 15; i >= 0; i--) {
+            bits.append((vendorBits >>> i & 1) == 0 ? '0' : '1');
+        }
+        bits.append("0000000000000000").append('0').append("000000000000");
+        while (bits.length() % 8 != 0) {
+            bits.append('0');
+        }
+        return TCStringV2Test.base64FromBitString(bits.toString());
+    }
+
+    @Test
+    public void testMaximumSize() {
+        for (int maximumSize : new int[] {1, 3, 10, 17, 100}) {
+            TCStringCache cache = TCStringCache.newBuilder().maximumSize(maximumSize).build();
+            for (int i = 0; i < 1000; i++) {
+                cache.get(consentWithVendors(i));
+                assertTrue(cache.size() <= maximumSize);
+            }
+            assertEquals(maximumSize, cache.size());
+        }
+    }
+}
@@ -19,14 +19,20 @@ package com.iabtcf.decoder;
  * limitations under the License.
  * #L%
  */
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 
 import org.junit.Test;
 
 import com.iabtcf.exceptions.ByteParseException;
 import com.iabtcf.exceptions.UnsupportedVersionException;
+import com.iabtcf.utils.FieldDefs;
 
 public class TCStringDecoderTest {
 
@@ -70,4 +76,89 @@ public class TCStringDecoderTest {
     public void testLazyFailure() {
         TCString.decode("CA==", DecoderOption.LAZY).getCmpId();
     }
+
+    @Test
+    public void testDecodeBytes() {
+        String tcString =
+                "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA.IFoEUQQgAIQwgIwQABAEAAAAOIAACAIAAAAQAIAgEAACEAAAAAgAQBAAAAAAAGBAAgAAAAAAAFAAECAAAgAAQARAEQAAAAAJAAIAAgAAAYQEAAAQmAgBC3ZAYzUw";
+        byte[] bytes = ("euconsent-v2=" + tcString + ";").getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(TCString.decode(tcString), TCString.decode(bytes, 13, tcString.length()));
+    }
+
+    @Test
+    public void testDecodeByteBuffer() {
+        String tcString = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA";
+        byte[] bytes = ("x" + tcString + "y").getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer heap = ByteBuffer.wrap(bytes, 1, tcString.length());
+        assertEquals(TCString.decode(tcString), TCString.decode(heap));
+        assertEquals(1, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        direct.position(1).limit(1 + tcString.length());
+        assertEquals(TCString.decode(tcString), TCString.decode(direct));
+        assertEquals(TCString.decode(tcString), TCString.decode(direct.slice(), DecoderOption.LAZY));
+    }
+
+    @Test
+    public void testDecodeBytesThenChangeBytes() {
+        String tcString =
+                "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA.IFoEUQQgAIQwgIwQABAEAAAAOIAACAIAAAAQAIAgEAACEAAAAAgAQBAAAAAAAGBAAgAAAAAAAFAAECAAAgAAQARAEQAAAAAJAAIAAgAAAYQEAAAQmAgBC3ZAYzUw";
+        byte[] bytes = tcString.getBytes(StandardCharsets.US_ASCII);
+        TCString decoded = TCString.decode(bytes, 0, bytes.length);
+        TCString lazy = TCString.decode(bytes, 0, bytes.length, DecoderOption.LAZY);
+        lazy.getDisclosedVendors();
+
+        Arrays.fill(bytes, (byte) '!');
+        assertEquals(TCString.decode(tcString), decoded);
+        assertEquals(TCString.decode(tcString).getDisclosedVendors(), lazy.getDisclosedVendors());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testDecodeBytesOutOfRange() {
+        TCString.decode(new byte[10], 5, 6);
+    }
+
+    @Test
+    public void testReusableDecoder() {
+        String range = "COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA";
+        String bitfield = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA";
+        TCStringDecoder decoder = TCStringDecoder.newBuilder()
+                .projection(Projection.of(FieldDefs.CORE_VENDOR_BITRANGE_FIELD))
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(TCString.decode(range), decoder.decodeString(range));
+            assertEquals(TCString.decode(bitfield), decoder.decodeString(bitfield));
+        }
+    }
+
+    @Test(expected = ByteParseException.class)
+    public void testReusableDecoderFailure() {
+        TCStringDecoder.newBuilder().build().decodeString("CA==");
+    }
+
+    @Test
+    public void testEagerVendorsOutliveSource() {
+        String tcString = "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA";
+        ByteBuffer buffer = ByteBuffer.wrap(tcString.getBytes(StandardCharsets.US_ASCII));
+        TCString decoded = TCString.decode(buffer);
+        assertTrue(decoded.getVendorConsent().contains(23));
+
+        Arrays.fill(buffer.array(), (byte) 'A');
+        assertTrue(decoded.getVendorConsent().contains(23));
+        Arrays.fill(buffer.array(), (byte) '!');
+        assertTrue(decoded.getVendorConsent().contains(23));
+        assertEquals(TCString.decode(tcString), decoded);
+
+        StringBuilder sb = new StringBuilder(tcString);
+        decoded = TCStringDecoder.newBuilder().build().decodeString(sb);
+        TCString lazy = TCStringDecoder.decode(sb, DecoderOption.LAZY);
+        assertTrue(lazy.getVendorConsent().contains(23));
+        sb.setCharAt(42, 'A');
+        assertTrue(decoded.getVendorConsent().contains(23));
+        assertTrue(lazy.getVendorConsent().contains(23));
+    }
 }
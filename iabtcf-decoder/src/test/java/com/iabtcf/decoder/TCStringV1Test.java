@@ -25,13 +25,17 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.junit.Test;
 
+import com.iabtcf.utils.IntIterable;
+
 public class TCStringV1Test {
 
     private static TCString parse(String consentString) {
@@ -163,4 +167,27 @@ public class TCStringV1Test {
         TCString model = parse("BOwOh-wOwOh-wABABBAAABAAAAACqADgAUACgAHgAPg");
         assertTrue(model.getVendorConsent().contains(15));
     }
+
+    @Test
+    public void testSingleEntryPastMaxVendorId() {
+        // max vendor id 10 with a single entry for vendor 100
+        assertThat(parse("BOOzQoAOOzQoAAPAFSENCW-AIBAAqABADIA").getVendorConsent(), matchInts(100));
+
+        // the default consent only applies up to the max vendor id
+        Set<Integer> expectedVendorIds =
+                IntStream.concat(IntStream.rangeClosed(1, 10), IntStream.of(100))
+                    .boxed()
+                    .collect(Collectors.toSet());
+        assertThat(parse("BOOzQoAOOzQoAAPAFSENCW-AIBAArABADIA").getVendorConsent(), matchInts(expectedVendorIds));
+    }
+
+    @Test
+    public void testBitFieldFromBytesThenChangeBytes() {
+        byte[] bytes = "BOOzQoAOOzQoAAPAFSENCW-AIBACBAAABCA".getBytes(StandardCharsets.US_ASCII);
+        IntIterable vendorConsent = TCString.decode(bytes, 0, bytes.length).getVendorConsent();
+
+        Arrays.fill(bytes, (byte) 'A');
+        assertThat(vendorConsent, matchInts(1, 25, 30));
+        assertTrue(vendorConsent.contains(25));
+    }
 }
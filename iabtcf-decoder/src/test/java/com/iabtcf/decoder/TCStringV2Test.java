@@ -24,6 +24,7 @@ import static com.iabtcf.test.utils.IntIterableMatcher.matchInts;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -31,11 +32,19 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 import org.junit.Test;
 
 import com.iabtcf.utils.BitSetIntIterable;
+import com.iabtcf.utils.IntIterable;
+import com.iabtcf.utils.RangeIntIterable;
 import com.iabtcf.v2.PublisherRestriction;
 import com.iabtcf.v2.RestrictionType;
 
@@ -232,6 +241,23 @@ public class TCStringV2Test {
         assertThat(tcModel.getVendorConsent(), matchInts(703));
     }
 
+    @Test
+    public void testRangeKeptAsRanges() {
+        // vendor consents 1-1200 as a single range entry, no vendor legitimate interests
+        String bitString = "000010" + String.format("%0207d", 0) + "0000010010110000" + "1" + "000000000001"
+                + "1" + "0000000000000001" + "0000010010110000" + "0000000000000000" + "0" + "000000000000";
+
+        IntIterable vendorConsent = parse(base64FromBitString(bitString)).getVendorConsent();
+        assertTrue(vendorConsent instanceof RangeIntIterable);
+        assertTrue(vendorConsent.contains(1));
+        assertTrue(vendorConsent.contains(1200));
+        assertFalse(vendorConsent.contains(1201));
+
+        BitSet expected = new BitSet();
+        expected.set(1, 1201);
+        assertEquals(BitSetIntIterable.from(expected), vendorConsent);
+    }
+
     @Test
     public void testPurposesConsent() {
         String consent = "COwxsONOwxsONKpAAAENAdCAAMAAAAAAAAAAAAAAAAAA";
@@ -240,6 +266,15 @@ public class TCStringV2Test {
         assertTrue(tcModel.getPurposesConsent().containsAll(1, 2));
     }
 
+    @Test
+    public void testPurposesShared() {
+        String consent = "COwxsONOwxsONKpAAAENAdCAAMAAAAAAAAAAAAAAAAAA";
+
+        assertSame(parse(consent).getPurposesConsent(), parse(consent).getPurposesConsent());
+        assertSame(parse(consent).getSpecialFeatureOptIns(),
+                TCString.decode(consent, DecoderOption.LAZY).getSpecialFeatureOptIns());
+    }
+
     @Test
     public void testHashCodeEquals() {
         String consent1 =
@@ -277,4 +312,111 @@ public class TCStringV2Test {
 
         assertNotEquals(tcModel1.hashCode(), tcModel2.hashCode());
     }
+
+    @Test
+    public void testEagerMatchesLazy() {
+        String core = "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA";
+        String pptc = base64FromBitString("011" + "000000000000000000000101" + "000000000000000000010000"
+                + "000011" + "101" + "010" + "0");
+        String[] consents = {
+                "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA",
+                "COv__-wOv__-wC2AAAENAPCgAAAAAAAAAAAAA_wAQA_gEBABAEAAAA",
+                "COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA.IFoEUQQgAIQwgIwQABAEAAAAOIAACAIAAAAQAIAgEAACEAAAAAgAQBAAAAAAAGBAAgAAAAAAAFAAECAAAgAAQARAEQAAAAAJAAIAAgAAAYQEAAAQmAgBC3ZAYzUw",
+                core + ".IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgA",
+                core + "." + pptc,
+                // only the first segment of each type is used
+                core + ".QAagAQAgAIAwgA.IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgAAA." + pptc + ".IBAgAA"
+        };
+
+        for (String consent : consents) {
+            TCString eager = TCString.decode(consent);
+            TCString lazy = TCString.decode(consent, DecoderOption.LAZY);
+
+            assertEquals(lazy, eager);
+            assertEquals(lazy.toString(), eager.toString());
+        }
+
+        TCString tcString = TCString.decode(core + "." + pptc);
+        assertThat(tcString.getPubPurposesConsent(), matchInts(22, 24));
+        assertThat(tcString.getPubPurposesLITransparency(), matchInts(20));
+        assertThat(tcString.getCustomPurposesConsent(), matchInts(1, 3));
+        assertThat(tcString.getCustomPurposesLITransparency(), matchInts(2));
+    }
+
+    @Test
+    public void testConcurrentLazyAccess() throws Exception {
+        String consent =
+                "COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA.IFoEUQQgAIQwgIwQABAEAAAAOIAACAIAAAAQAIAgEAACEAAAAAgAQBAAAAAAAGBAAgAAAAAAAFAAECAAAgAAQARAEQAAAAAJAAIAAgAAAYQEAAAQmAgBC3ZAYzUw";
+        TCString expected = TCString.decode(consent);
+
+        for (int n = 0; n < 50; n++) {
+            TCString shared = TCString.decode(consent, DecoderOption.LAZY);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    results.add(executor.submit(
+                            () -> expected.equals(shared) && expected.hashCode() == shared.hashCode()));
+                }
+                for (Future<Boolean> result : results) {
+                    assertTrue(result.get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentLazyGetters() throws Exception {
+        String consent = "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA"
+                + ".IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgA."
+                + base64FromBitString("011" + "100000000000000000000000" + "000000000000000000000001" + "000010"
+                        + "01" + "11" + "000");
+        TCString expected = TCString.decode(consent);
+        List<Function<TCString, Object>> getters = Arrays.asList(
+                TCString::getVendorConsent,
+                TCString::getVendorLegitimateInterest,
+                TCString::getPublisherRestrictions,
+                TCString::getDisclosedVendors,
+                TCString::getAllowedVendors,
+                TCString::getPubPurposesConsent,
+                TCString::getPubPurposesLITransparency,
+                TCString::getCustomPurposesConsent,
+                TCString::getCustomPurposesLITransparency);
+
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int n = 0; n < 200; n++) {
+                TCString shared = TCString.decode(consent, DecoderOption.LAZY);
+                CyclicBarrier barrier = new CyclicBarrier(threads);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    int first = i;
+                    results.add(executor.submit(() -> {
+                        barrier.await();
+                        // each thread starts with a different field and reads every field twice
+                        for (int j = 0; j < 2 * getters.size(); j++) {
+                            Function<TCString, Object> getter = getters.get((first + j) % getters.size());
+                            if (!getter.apply(expected).equals(getter.apply(shared))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }));
+                }
+                for (Future<Boolean> result : results) {
+                    assertTrue(result.get());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPublisherRestrictionsUnmodifiable() {
+        parse("COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA").getPublisherRestrictions().clear();
+    }
 }
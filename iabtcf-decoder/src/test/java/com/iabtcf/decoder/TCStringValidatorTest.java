@@ -0,0 +1,173 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.iabtcf.decoder.TCStringValidator.Status;
+import com.iabtcf.exceptions.TCStringDecodeException;
+
+public class TCStringValidatorTest {
+    private static final String CORE = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA";
+
+    private static final String[] VALID = {
+            CORE,
+            CORE + ".IFoEUQQgAIQwgIwQABAEAAAAOIAACAIAAAAQAIAgEAACEAAAAAgAQBAAAAAAAGBAAgAAAAAAAFAAECAAAgAAQARAEQAAAAAJAAIAAgAAAYQEAAAQmAgBC3ZAYzUw",
+            "COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA",
+            "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA"
+                    + ".IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgA",
+            "COv__-wOv__-wC2AAAENAPCgAAAAAAAAAAAAA_wAQA_gEBABAEAAAA",
+            "BOv5oL3Ov5oL3ABABBAAABAAAAABMAAA",
+            CORE + "."
+    };
+
+    private static String zeros(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append('0');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testValid() {
+        for (String consent : VALID) {
+            assertEquals(consent, Status.VALID, TCStringValidator.validate(consent));
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        assertEquals(Status.TRUNCATED, TCStringValidator.validate(""));
+        assertEquals(Status.TRUNCATED, TCStringValidator.validate("CA=="));
+        assertEquals(Status.TRUNCATED, TCStringValidator.validate(CORE.substring(0, 36)));
+        assertEquals(Status.ILLEGAL_LENGTH, TCStringValidator.validate("COtyb"));
+        assertEquals(Status.ILLEGAL_CHARACTER, TCStringValidator.validate("C*" + CORE.substring(2)));
+        assertEquals(Status.UNSUPPORTED_VERSION, TCStringValidator.validate("DOv5oL3Ov5oL3ABABBAAABAAAAABMAAA"));
+        assertEquals(Status.INVALID_SEGMENT_TYPE, TCStringValidator.validate(CORE + ".AAAA"));
+        assertEquals(Status.TRUNCATED, TCStringValidator.validate(CORE + ".IB"));
+        assertEquals(Status.TRUNCATED, TCStringValidator.validate(CORE + "..IBAgAAAgAIAwgAgAAAAEAAAACA"));
+        assertEquals(Status.ILLEGAL_CHARACTER, TCStringValidator.validate(CORE + ".IBAgAAA!"));
+    }
+
+    @Test
+    public void testInvalidRange() {
+        // version 2, max vendor id 5, a range entry from 3 to 2
+        String bits = "000010" + zeros(207) + "0000000000000101" + "1" + "000000000001"
+                + "1" + "0000000000000011" + "0000000000000010";
+        bits += zeros(8 - bits.length() % 8);
+        assertEquals(Status.INVALID_RANGE, TCStringValidator.validate(TCStringV2Test.base64FromBitString(bits)));
+    }
+
+    @Test
+    public void testAgreesWithDecoder() {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.";
+        Random r = new Random(1);
+
+        for (int n = 0; n < 10000; n++) {
+            StringBuilder sb = new StringBuilder(VALID[r.nextInt(VALID.length - 1)]);
+            for (int m = r.nextInt(3); m >= 0 && sb.length() > 0; m--) {
+                int i = r.nextInt(sb.length());
+                if (r.nextInt(4) == 0) {
+                    sb.setLength(i);
+                } else {
+                    sb.setCharAt(i, alphabet.charAt(r.nextInt(alphabet.length())));
+                }
+            }
+            String consent = sb.toString();
+
+            boolean decodes;
+            try {
+                TCString tcString = TCString.decode(consent);
+                if (tcString.getVersion() == 1) {
+                    tcString.getVendorConsent();
+                    tcString.getConsentLanguage();
+                }
+                decodes = true;
+            } catch (TCStringDecodeException | IllegalArgumentException e) {
+                decodes = false;
+            }
+
+            // the validator checks every segment, the decoder only the first segment of each type
+            if (TCStringValidator.validate(consent) == Status.VALID) {
+                assertTrue(consent, decodes);
+            }
+        }
+    }
+
+    private static void readAllFields(TCString tcString) {
+        if (tcString.getVersion() == 1) {
+            tcString.hashCode();
+            tcString.getDefaultVendorConsent();
+            tcString.getVendorConsent().toSet();
+        } else {
+            // reads every field, including every entry of the vendor sets and restrictions
+            tcString.toString();
+        }
+        for (int i = 0; i < 1200; i++) {
+            tcString.getVendorConsent().contains(i);
+        }
+    }
+
+    @Test
+    public void testValidStringsDecode() {
+        String[] corpus = {
+                VALID[0], VALID[1], VALID[2], VALID[3], VALID[4], VALID[5],
+                "BOOzQoAOOzQoAAPAFSENCW-AIBACCACgACADIAHg",
+                "BOOzQoAOOzQoAAPAFSENCW-AIBACDACAADABkAHg",
+                "BOwOh-wOwOh-wABABBAAABAAAAACqADgAUACgAHgAPg",
+                // v1 ranges with a single entry past the max vendor id
+                "BOOzQoAOOzQoAAPAFSENCW-AIBAAqABADIA",
+                "BOOzQoAOOzQoAAPAFSENCW-AIBAArABADIA"
+        };
+        for (String consent : corpus) {
+            assertEquals(consent, Status.VALID, TCStringValidator.validate(consent));
+        }
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.";
+        Random r = new Random(2);
+
+        int valid = 0;
+        for (int n = 0; n < 20000; n++) {
+            StringBuilder sb = new StringBuilder(corpus[r.nextInt(corpus.length)]);
+            for (int m = r.nextInt(3); m > 0 && sb.length() > 0; m--) {
+                int i = r.nextInt(sb.length());
+                if (r.nextInt(8) == 0) {
+                    sb.setLength(i);
+                } else {
+                    sb.setCharAt(i, alphabet.charAt(r.nextInt(alphabet.length())));
+                }
+            }
+            String consent = sb.toString();
+
+            if (TCStringValidator.validate(consent) == Status.VALID) {
+                valid++;
+                readAllFields(TCString.decode(consent));
+                readAllFields(TCString.decode(consent, DecoderOption.LAZY));
+            }
+        }
+        assertTrue(valid > 1000);
+    }
+}
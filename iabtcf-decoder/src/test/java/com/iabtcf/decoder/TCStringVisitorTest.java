@@ -0,0 +1,223 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.iabtcf.exceptions.ByteParseException;
+import com.iabtcf.exceptions.UnsupportedVersionException;
+import com.iabtcf.utils.FieldDefs;
+import com.iabtcf.utils.IntIterable;
+import com.iabtcf.utils.WordIntIterable;
+import com.iabtcf.v2.PublisherRestriction;
+import com.iabtcf.v2.RestrictionType;
+
+public class TCStringVisitorTest {
+    private static final String[] CONSENTS = {
+            "COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA",
+            "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA"
+                    + ".IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgA",
+            "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA."
+                    + TCStringV2Test.base64FromBitString("011" + "000000000000000000000101"
+                            + "000000000000000000010000" + "000011" + "101" + "010" + "0"),
+            "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA.IFoEUQQgAIQwgIwQABAEAAAAOIAACAIAAAAQAIAgEAACEAAAAAgAQBAAAAAAA"
+                    + "GBAAgAAAAAAAFAAECAAAgAAQARAEQAAAAAJAAIAAgAAAYQEAAAQmAgBC3ZAYzUw"
+    };
+
+    /**
+     * Rebuilds the fields of a TCString from the callbacks.
+     */
+    private static class Recorder implements TCStringVisitor {
+        int cmpId;
+        long lastUpdated;
+        String consentLanguage;
+        String publisherCC;
+        boolean purposeOneTreatment;
+        IntIterable purposesConsent;
+        IntIterable purposesLITransparency;
+        IntIterable specialFeatureOptIns;
+        IntIterable pubPurposesConsent = WordIntIterable.EMPTY;
+        IntIterable customPurposesLITransparency = WordIntIterable.EMPTY;
+        final Map<FieldDefs, BitSet> vendors = new EnumMap<>(FieldDefs.class);
+        final List<PublisherRestriction> restrictions = new ArrayList<>();
+        BitSet restrictionVendors;
+        int restrictionPurposeId;
+        RestrictionType restrictionType;
+
+        @Override
+        public void onHeader(int version, long created, long lastUpdated, int cmpId, int cmpVersion,
+                int consentScreen, char consentLanguage0, char consentLanguage1, int vendorListVersion,
+                int tcfPolicyVersion, boolean isServiceSpecific, boolean useNonStandardStacks) {
+            this.cmpId = cmpId;
+            this.lastUpdated = lastUpdated;
+            this.consentLanguage = new String(new char[] {consentLanguage0, consentLanguage1});
+        }
+
+        @Override
+        public void onSpecialFeatureOptIns(int mask) {
+            specialFeatureOptIns = WordIntIterable.valueOf(mask);
+        }
+
+        @Override
+        public void onPurposesConsent(int mask) {
+            purposesConsent = WordIntIterable.valueOf(mask);
+        }
+
+        @Override
+        public void onPurposesLITransparency(int mask) {
+            purposesLITransparency = WordIntIterable.valueOf(mask);
+        }
+
+        @Override
+        public void onPublisher(boolean purposeOneTreatment, char publisherCC0, char publisherCC1) {
+            this.purposeOneTreatment = purposeOneTreatment;
+            this.publisherCC = new String(new char[] {publisherCC0, publisherCC1});
+        }
+
+        @Override
+        public void onVendors(FieldDefs field, int maxVendorId) {
+            vendors.put(field, new BitSet());
+        }
+
+        @Override
+        public void onVendorBit(FieldDefs field, int vendorId) {
+            vendors.get(field).set(vendorId);
+        }
+
+        @Override
+        public void onVendorRange(FieldDefs field, int start, int end) {
+            if (field == FieldDefs.CORE_PUB_RESTRICTION_ENTRY) {
+                restrictionVendors.set(start, end + 1);
+            } else {
+                vendors.get(field).set(start, end + 1);
+            }
+        }
+
+        @Override
+        public void onPublisherRestriction(int purposeId, RestrictionType restrictionType) {
+            endRestriction();
+            this.restrictionPurposeId = purposeId;
+            this.restrictionType = restrictionType;
+            this.restrictionVendors = new BitSet();
+        }
+
+        void endRestriction() {
+            if (restrictionVendors != null) {
+                restrictions.add(new PublisherRestriction(restrictionPurposeId, restrictionType,
+                        WordIntIterable.from(restrictionVendors)));
+                restrictionVendors = null;
+            }
+        }
+
+        @Override
+        public void onPublisherPurposes(int consentMask, int liTransparencyMask) {
+            pubPurposesConsent = WordIntIterable.valueOf(consentMask);
+        }
+
+        @Override
+        public void onCustomPurposes(int count, long consentMask, long liTransparencyMask) {
+            customPurposesLITransparency = WordIntIterable.valueOf(liTransparencyMask);
+        }
+
+        IntIterable vendors(FieldDefs field) {
+            BitSet bitSet = vendors.get(field);
+            return bitSet == null ? WordIntIterable.EMPTY : WordIntIterable.from(bitSet);
+        }
+    }
+
+    @Test
+    public void testMatchesDecode() {
+        for (String consent : CONSENTS) {
+            Recorder recorder = new Recorder();
+            TCString.accept(consent, recorder);
+            recorder.endRestriction();
+
+            TCString tcString = TCString.decode(consent);
+            assertEquals(tcString.getCmpId(), recorder.cmpId);
+            assertEquals(tcString.getLastUpdated().toEpochMilli(), recorder.lastUpdated);
+            assertEquals(tcString.getConsentLanguage(), recorder.consentLanguage);
+            assertEquals(tcString.getPublisherCC(), recorder.publisherCC);
+            assertEquals(tcString.getPurposeOneTreatment(), recorder.purposeOneTreatment);
+            assertEquals(tcString.getSpecialFeatureOptIns(), recorder.specialFeatureOptIns);
+            assertEquals(tcString.getPurposesConsent(), recorder.purposesConsent);
+            assertEquals(tcString.getPurposesLITransparency(), recorder.purposesLITransparency);
+            assertEquals(tcString.getVendorConsent(), recorder.vendors(FieldDefs.CORE_VENDOR_BITRANGE_FIELD));
+            assertEquals(tcString.getVendorLegitimateInterest(),
+                    recorder.vendors(FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD));
+            assertEquals(tcString.getDisclosedVendors(), recorder.vendors(FieldDefs.DV_VENDOR_BITRANGE_FIELD));
+            assertEquals(tcString.getAllowedVendors(), recorder.vendors(FieldDefs.AV_VENDOR_BITRANGE_FIELD));
+            assertEquals(tcString.getPublisherRestrictions(), recorder.restrictions);
+            assertEquals(tcString.getPubPurposesConsent(), recorder.pubPurposesConsent);
+            assertEquals(tcString.getCustomPurposesLITransparency(), recorder.customPurposesLITransparency);
+        }
+    }
+
+    @Test
+    public void testRestrictionVendors() {
+        StringBuilder bits = new StringBuilder("000010");
+        while (bits.length() < 213) {
+            bits.append('0');
+        }
+        // vendor consents 1 and 3 as a bitfield, no vendor legitimate interests
+        bits.append("0000000000000011" + "0" + "101");
+        bits.append("0000000000000000" + "0");
+        // one restriction of purpose 1, vendors 2 to 4 and 7
+        bits.append("000000000001" + "000001" + "01" + "000000000010");
+        bits.append("1" + "0000000000000010" + "0000000000000100");
+        bits.append("0" + "0000000000000111");
+        while (bits.length() % 8 != 0) {
+            bits.append('0');
+        }
+        String consent = TCStringV2Test.base64FromBitString(bits.toString());
+
+        Recorder recorder = new Recorder();
+        TCString.accept(consent, recorder);
+        recorder.endRestriction();
+
+        assertEquals(TCString.decode(consent).getPublisherRestrictions(), recorder.restrictions);
+        assertEquals(1, recorder.restrictions.size());
+        assertEquals(RestrictionType.REQUIRE_CONSENT, recorder.restrictions.get(0).getRestrictionType());
+        assertEquals(WordIntIterable.from(BitSet.valueOf(new long[] {0b10011100})),
+                recorder.restrictions.get(0).getVendorIds());
+        assertEquals(WordIntIterable.from(BitSet.valueOf(new long[] {0b1010})),
+                recorder.vendors(FieldDefs.CORE_VENDOR_BITRANGE_FIELD));
+    }
+
+    @Test(expected = ByteParseException.class)
+    public void testTruncated() {
+        TCString.accept("COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA.IB", new TCStringVisitor() {
+        });
+    }
+
+    @Test(expected = UnsupportedVersionException.class)
+    public void testVersion1() {
+        TCString.accept("BObdrPUOevsguAfDqFENCNAAAAAmeAAA", new TCStringVisitor() {
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VendorSetInternerTest {
+    // publisher restrictions and range encoded vendors, the variant only differs in its created date
+    private static final String CONSENT = "COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA";
+    private static final String VARIANT = "CPwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA";
+
+    // bitfield encoded vendors with a disclosed vendors segment
+    private static final String BITFIELD = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA"
+            + ".IFoEUQQgAIQwgIwQABAEAAAAOIAACAIAAAAQAIAgEAACEAAAAAgAQBAAAAAAAGBAAgAAAAAAAFAAECAAAgAAQARAEQAAAAAJAAIAAgAAAYQEAAAQmAgBC3ZAYzUw";
+
+    @Test
+    public void testSharesVendorSets() {
+        VendorSetInterner interner = new VendorSetInterner(100);
+        TCString a = TCStringDecoder.decode(CONSENT, Projection.ALL, interner);
+        TCString b = TCStringDecoder.decode(VARIANT, Projection.NONE, interner);
+
+        assertNotEquals(a.getCreated(), b.getCreated());
+        assertSame(a.getVendorConsent(), b.getVendorConsent());
+        assertSame(a.getVendorLegitimateInterest(), b.getVendorLegitimateInterest());
+        for (int i = 0; i < a.getPublisherRestrictions().size(); i++) {
+            assertSame(a.getPublisherRestrictions().get(i).getVendorIds(),
+                    b.getPublisherRestrictions().get(i).getVendorIds());
+        }
+
+        TCString expected = TCString.decode(CONSENT);
+        assertEquals(expected.getVendorConsent(), a.getVendorConsent());
+        assertEquals(expected.getPublisherRestrictions(), a.getPublisherRestrictions());
+        assertEquals(expected, a);
+    }
+
+    @Test
+    public void testSharesBitfields() {
+        VendorSetInterner interner = new VendorSetInterner(100);
+        TCString a = TCStringDecoder.decode(BITFIELD, Projection.ALL, interner);
+        long hits = interner.getHitCount();
+        long misses = interner.getMissCount();
+        TCString b = TCStringDecoder.decode(BITFIELD, Projection.ALL, interner);
+
+        assertSame(a.getDisclosedVendors(), b.getDisclosedVendors());
+        assertEquals(TCString.decode(BITFIELD).getDisclosedVendors(), a.getDisclosedVendors());
+        assertEquals(TCString.decode(BITFIELD), a);
+        // every lookup of the second decode is a hit
+        assertEquals(misses, interner.getMissCount());
+        assertEquals(2 * hits + misses, interner.getHitCount());
+        assertEquals(misses, interner.size());
+    }
+
+    @Test
+    public void testCache() {
+        VendorSetInterner interner = new VendorSetInterner(100);
+        TCStringCache cache = TCStringCache.newBuilder().vendorSetInterner(interner).build();
+
+        assertSame(cache.get(CONSENT).getVendorConsent(), cache.get(VARIANT).getVendorConsent());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testBounded() {
+        VendorSetInterner interner = new VendorSetInterner(1);
+        TCStringDecoder.decode(CONSENT, Projection.ALL, interner);
+        TCStringDecoder.decode(BITFIELD, Projection.ALL, interner);
+        assertEquals(1, interner.size());
+
+        interner.clear();
+        assertEquals(0, interner.size());
+    }
+
+    @Test
+    public void testMaximumSize() {
+        for (int maximumSize : new int[] {2, 10, 17, 100}) {
+            VendorSetInterner interner = new VendorSetInterner(maximumSize);
+            for (int i = 0; i < 1000; i++) {
+                TCStringDecoder.decode(TCStringCacheTest.consentWithVendors(i), Projection.ALL, interner);
+                assertTrue(interner.size() <= maximumSize);
+            }
+            assertEquals(maximumSize, interner.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaximumSize() {
+        new VendorSetInterner(0);
+    }
+}
@@ -0,0 +1,98 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.iabtcf.exceptions.ByteParseException;
+
+public class BitFieldIntIterableTest {
+    private static class CountingBitReader extends BitReader {
+        int bitReads;
+        int wordReads;
+
+        CountingBitReader(byte[] buffer) {
+            super(buffer);
+        }
+
+        @Override
+        public boolean readBits1(int offset) {
+            bitReads++;
+            return super.readBits1(offset);
+        }
+
+        @Override
+        public long[] readWords(int offset, int length, int startIndex) {
+            wordReads++;
+            return super.readWords(offset, length, startIndex);
+        }
+    }
+
+    @Test
+    public void testContainsReadsOneBit() {
+        byte[] buffer = new byte[32];
+        new Random(1).nextBytes(buffer);
+        CountingBitReader bbv = new CountingBitReader(buffer);
+
+        BitFieldIntIterable ii = BitFieldIntIterable.of(bbv, 5, 200);
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 200; i++) {
+            if (bbv.readBits1(5 + i)) {
+                expected.set(i + 1);
+            }
+        }
+
+        bbv.bitReads = 0;
+        for (int i = -1; i <= 202; i++) {
+            assertEquals(expected.get(Math.max(i, 0)) && i > 0, ii.contains(i));
+        }
+        assertEquals(200, bbv.bitReads);
+        assertEquals(0, bbv.wordReads);
+
+        assertEquals(BitSetIntIterable.from(expected), ii);
+        assertEquals(ii, BitSetIntIterable.from(expected));
+        assertEquals(BitSetIntIterable.from(expected).hashCode(), ii.hashCode());
+        assertEquals(expected.cardinality(), ii.cardinality());
+        assertEquals(expected.length() - 1, ii.max());
+        assertEquals(1, bbv.wordReads);
+    }
+
+    @Test
+    public void testEmpty() {
+        BitFieldIntIterable ii = BitFieldIntIterable.of(new BitReader(new byte[1]), 0, 0);
+        assertFalse(ii.contains(0));
+        assertFalse(ii.contains(1));
+        assertTrue(ii.isEmpty());
+        assertEquals(WordIntIterable.EMPTY, ii);
+    }
+
+    @Test(expected = ByteParseException.class)
+    public void testTruncated() {
+        BitFieldIntIterable.of(new BitReader(new byte[2]), 4, 13);
+    }
+}
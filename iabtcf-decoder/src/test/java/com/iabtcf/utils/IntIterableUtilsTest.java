@@ -20,11 +20,18 @@ package com.iabtcf.utils;
  * #L%
  */
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
 
@@ -54,4 +61,97 @@ public class IntIterableUtilsTest {
 
         assertEquals(new TreeSet<>(Arrays.asList(0, 1, 512)), l);
     }
+
+    private static List<IntIterable> representations(BitSet bs) {
+        RangeIntIterable.Builder ranges = RangeIntIterable.newBuilder(0);
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(bs.nextClearBit(i))) {
+            ranges.add(i, bs.nextClearBit(i));
+        }
+        return Arrays.asList(BitSetIntIterable.from(bs), WordIntIterable.from(bs), ranges.build());
+    }
+
+    private static void split(Spliterator.OfInt spliterator, List<Integer> values) {
+        long size = spliterator.estimateSize();
+        Spliterator.OfInt prefix = spliterator.trySplit();
+        if (prefix == null) {
+            int before = values.size();
+            spliterator.forEachRemaining((int value) -> values.add(value));
+            assertEquals(size, values.size() - before);
+            return;
+        }
+
+        assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+        split(prefix, values);
+        if (spliterator.tryAdvance((int value) -> values.add(value))) {
+            split(spliterator, values);
+        }
+    }
+
+    @Test
+    public void testPrimitiveAccess() {
+        Random r = new Random(1);
+        for (int n = 0; n < 200; n++) {
+            BitSet bs = new BitSet();
+            int max = 1 + r.nextInt(1000);
+            for (int m = r.nextInt(4); m > 0; m--) {
+                int from = r.nextInt(max);
+                bs.set(from, from + r.nextInt(max - from + 1));
+            }
+            for (int m = r.nextInt(20); m > 0; m--) {
+                bs.set(r.nextInt(max));
+            }
+            int[] expected = bs.stream().toArray();
+
+            for (IntIterable ii : representations(bs)) {
+                assertArrayEquals(expected, ii.toIntArray());
+                assertEquals(expected.length, ii.size());
+
+                List<Integer> values = new ArrayList<>();
+                ii.forEachInt(values::add);
+                assertEquals(bs.stream().boxed().collect(Collectors.toList()), values);
+
+                Spliterator.OfInt spliterator = ii.intSpliterator();
+                assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+                assertEquals(expected.length, spliterator.estimateSize());
+
+                values.clear();
+                split(spliterator, values);
+                assertEquals(bs.stream().boxed().collect(Collectors.toList()), values);
+
+                assertEquals(bs.stream().asLongStream().sum(), ii.toStream().parallel().asLongStream().sum());
+            }
+        }
+    }
+
+    @Test
+    public void testSpliteratorCharacteristics() {
+        int sortedSet = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.IMMUTABLE
+                | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED;
+        BitSet bs = new BitSet();
+        bs.set(1, 3);
+        List<IntIterable> sets = new ArrayList<>(representations(bs));
+        sets.add(BitFieldIntIterable.of(new BitReader(new byte[] {0x60}), 0, 8));
+        for (IntIterable ii : sets) {
+            assertTrue(ii.intSpliterator().hasCharacteristics(sortedSet));
+        }
+
+        IntIterable values = WordIntIterable.from(bs);
+        IntIterable view = new IntIterable() {
+            @Override
+            public boolean contains(int value) {
+                return values.contains(value);
+            }
+
+            @Override
+            public IntIterator intIterator() {
+                return values.intIterator();
+            }
+        };
+        Spliterator.OfInt spliterator = view.intSpliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.NONNULL));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SORTED));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.IMMUTABLE));
+        assertArrayEquals(new int[] {1, 2}, view.toStream().toArray());
+    }
 }
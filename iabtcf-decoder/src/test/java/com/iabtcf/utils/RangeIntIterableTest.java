@@ -0,0 +1,103 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RangeIntIterableTest {
+    @Test
+    public void testEmpty() {
+        RangeIntIterable e = RangeIntIterable.EMPTY;
+        assertFalse(e.contains(0));
+        assertFalse(e.intIterator().hasNext());
+        assertTrue(e.isEmpty());
+        assertEquals(0, e.cardinality());
+        assertEquals(0, e.max());
+        assertEquals(BitSetIntIterable.EMPTY, e);
+        assertEquals(WordIntIterable.EMPTY, e);
+        assertEquals(BitSetIntIterable.EMPTY.hashCode(), e.hashCode());
+        assertEquals(RangeIntIterable.EMPTY, RangeIntIterable.newBuilder(0).build());
+    }
+
+    @Test
+    public void testMatchesBitSet() {
+        Random r = new Random(1);
+        for (int n = 0; n < 1000; n++) {
+            int maxValue = 1 + r.nextInt(500);
+            int count = r.nextInt(6);
+            RangeIntIterable.Builder builder = RangeIntIterable.newBuilder(r.nextInt(count + 1));
+            BitSet bs = new BitSet();
+            for (int m = 0; m < count; m++) {
+                int from = r.nextInt(maxValue);
+                int to = from + r.nextInt(maxValue - from + 1);
+                builder.add(from, to);
+                bs.set(from, to);
+            }
+            RangeIntIterable e = builder.build();
+            BitSetIntIterable expected = BitSetIntIterable.from(bs);
+
+            assertEquals(expected, e);
+            assertEquals(e, expected);
+            assertEquals(WordIntIterable.from(bs), e);
+            assertEquals(e, WordIntIterable.from(bs));
+            assertEquals(expected.hashCode(), e.hashCode());
+            assertEquals(expected.toSet(), e.toSet());
+            assertEquals(bs.toString(), e.toString());
+            assertEquals(bs.cardinality(), e.cardinality());
+            assertEquals(bs.isEmpty() ? 0 : bs.length() - 1, e.max());
+            for (int i = -1; i <= maxValue; i++) {
+                assertEquals(i >= 0 && bs.get(i), e.contains(i));
+            }
+        }
+    }
+
+    @Test
+    public void testMergesRanges() {
+        RangeIntIterable e = RangeIntIterable.newBuilder(4).add(10, 20).add(1).add(20, 25).add(2, 3).build();
+        assertEquals(2, e.rangeCount());
+        assertEquals(BitSetIntIterable.from(1, 2, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24), e);
+
+        RangeIntIterable overlapping = RangeIntIterable.newBuilder(2).add(5, 10).add(3, 7).build();
+        assertEquals(1, overlapping.rangeCount());
+        assertEquals(RangeIntIterable.newBuilder(1).add(3, 10).build(), overlapping);
+        assertNotEquals(RangeIntIterable.newBuilder(1).add(3, 11).build(), overlapping);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        RangeIntIterable.newBuilder(1).add(5, 4);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuildOnce() {
+        RangeIntIterable.Builder builder = RangeIntIterable.newBuilder(1);
+        builder.build();
+        builder.build();
+    }
+}
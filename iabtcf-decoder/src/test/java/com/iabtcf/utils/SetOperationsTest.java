@@ -0,0 +1,116 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SetOperationsTest {
+    private static BitSet randomBitSet(Random r) {
+        BitSet bs = new BitSet();
+        int max = 1 + r.nextInt(400);
+        for (int m = r.nextInt(5); m > 0; m--) {
+            int from = r.nextInt(max);
+            bs.set(from, from + r.nextInt(max - from + 1));
+        }
+        for (int m = r.nextInt(10); m > 0; m--) {
+            bs.set(r.nextInt(max));
+        }
+        return bs;
+    }
+
+    private static RangeIntIterable ranges(BitSet bs) {
+        RangeIntIterable.Builder builder = RangeIntIterable.newBuilder(0);
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(bs.nextClearBit(i))) {
+            builder.add(i, bs.nextClearBit(i));
+        }
+        return builder.build();
+    }
+
+    private static IntIterable[] representations(BitSet bs) {
+        IntIterable plain = new IntIterable() {
+            @Override
+            public boolean contains(int value) {
+                return value >= 0 && bs.get(value);
+            }
+
+            @Override
+            public IntIterator intIterator() {
+                return BitSetIntIterable.from(bs).intIterator();
+            }
+        };
+        return new IntIterable[] {BitSetIntIterable.from(bs), WordIntIterable.from(bs), ranges(bs), plain};
+    }
+
+    @Test
+    public void testOperations() {
+        Random r = new Random(1);
+        for (int n = 0; n < 300; n++) {
+            BitSet a = randomBitSet(r);
+            BitSet b = randomBitSet(r);
+
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            BitSet andNot = (BitSet) a.clone();
+            andNot.andNot(b);
+
+            for (IntIterable x : representations(a)) {
+                assertEquals(a.cardinality(), x.cardinality());
+                for (IntIterable y : representations(b)) {
+                    assertEquals(BitSetIntIterable.from(and), x.and(y));
+                    assertEquals(BitSetIntIterable.from(or), x.or(y));
+                    assertEquals(BitSetIntIterable.from(andNot), x.andNot(y));
+                    assertEquals(a.intersects(b), x.intersects(y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRangesStayRanges() {
+        RangeIntIterable a = RangeIntIterable.newBuilder(2).add(1, 100).add(200, 300).build();
+        RangeIntIterable b = RangeIntIterable.newBuilder(1).add(50, 250).build();
+
+        assertTrue(a.and(b) instanceof RangeIntIterable);
+        assertTrue(a.or(b) instanceof RangeIntIterable);
+        assertEquals(RangeIntIterable.newBuilder(2).add(50, 100).add(200, 250).build(), a.and(b));
+        assertEquals(RangeIntIterable.newBuilder(1).add(1, 300).build(), a.or(b));
+    }
+
+    @Test
+    public void testContainsAllAny() {
+        IntIterable ii = BitSetIntIterable.from(1, 5);
+        assertTrue(ii.containsAll());
+        assertTrue(ii.containsAll(5, 1));
+        assertFalse(ii.containsAll(1, 2));
+        assertFalse(ii.containsAny());
+        assertTrue(ii.containsAny(2, 5));
+        assertFalse(ii.containsAny(2, 3));
+    }
+}
@@ -0,0 +1,158 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class WordIntIterableTest {
+    private static BitSet randomBitSet(Random r) {
+        BitSet bs = new BitSet();
+        int max = r.nextInt(300);
+        for (int i = 0; i < max / 4; i++) {
+            bs.set(r.nextInt(max));
+        }
+        return bs;
+    }
+
+    @Test
+    public void testEmpty() {
+        WordIntIterable e = WordIntIterable.EMPTY;
+        assertFalse(e.contains(0));
+        assertFalse(e.contains(-1));
+        assertFalse(e.intIterator().hasNext());
+        assertTrue(e.isEmpty());
+        assertEquals(0, e.cardinality());
+        assertEquals(0, e.max());
+        assertEquals(BitSetIntIterable.EMPTY, e);
+        assertEquals(e, BitSetIntIterable.EMPTY);
+        assertEquals(BitSetIntIterable.EMPTY.hashCode(), e.hashCode());
+    }
+
+    @Test
+    public void testMatchesBitSet() {
+        Random r = new Random(1);
+        for (int n = 0; n < 1000; n++) {
+            BitSet bs = randomBitSet(r);
+            WordIntIterable e = WordIntIterable.from(bs);
+            BitSetIntIterable expected = BitSetIntIterable.from(bs);
+
+            assertEquals(expected, e);
+            assertEquals(e, expected);
+            assertEquals(expected.hashCode(), e.hashCode());
+            assertEquals(expected.toSet(), e.toSet());
+            assertEquals(bs.toString(), e.toString());
+            assertEquals(bs.cardinality(), e.cardinality());
+            assertEquals(bs.isEmpty() ? 0 : bs.length() - 1, e.max());
+            assertEquals(bs, e.toBitSet());
+            for (int i = -1; i < bs.length() + 64; i++) {
+                assertEquals(bs.get(Math.max(i, 0)) && i >= 0, e.contains(i));
+            }
+        }
+    }
+
+    @Test
+    public void testTrailingZeroWords() {
+        WordIntIterable e = WordIntIterable.wrap(new long[] {0b1010L, 0, 0});
+        WordIntIterable trimmed = WordIntIterable.wrap(new long[] {0b1010L});
+
+        assertEquals(trimmed, e);
+        assertEquals(trimmed.hashCode(), e.hashCode());
+        assertEquals(BitSetIntIterable.from(1, 3), e);
+        assertEquals(3, e.max());
+        assertNotEquals(WordIntIterable.wrap(new long[] {0b1010L, 1}), e);
+        assertNotEquals(BitSetIntIterable.from(1, 3, 64), e);
+    }
+
+    @Test
+    public void testBuilderRanges() {
+        Random r = new Random(2);
+        for (int n = 0; n < 1000; n++) {
+            int maxValue = r.nextInt(300);
+            WordIntIterable.Builder builder = WordIntIterable.newBuilder(maxValue);
+            BitSet expected = new BitSet();
+
+            for (int m = r.nextInt(5); m >= 0; m--) {
+                int from = r.nextInt(maxValue + 1);
+                int to = from + r.nextInt(maxValue + 2 - from);
+                switch (r.nextInt(3)) {
+                    case 0:
+                        builder.add(from);
+                        expected.set(from);
+                        break;
+                    case 1:
+                        builder.add(from, to);
+                        expected.set(from, to);
+                        break;
+                    default:
+                        builder.flip(from, to);
+                        expected.flip(from, to);
+                        break;
+                }
+            }
+
+            assertEquals(BitSetIntIterable.from(expected), builder.build());
+        }
+    }
+
+    @Test
+    public void testValueOf() {
+        WordIntIterable e = WordIntIterable.valueOf(0b100110L);
+        assertSame(e, WordIntIterable.valueOf(0b100110L));
+        assertEquals(BitSetIntIterable.from(1, 2, 5), e);
+        assertSame(WordIntIterable.EMPTY, WordIntIterable.valueOf(0));
+        assertEquals(BitSetIntIterable.from(63), WordIntIterable.valueOf(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testToLongArrayCopies() {
+        long[] words = {0b110L};
+        WordIntIterable e = WordIntIterable.wrap(words);
+        e.toLongArray()[0] = 0;
+        assertArrayEquals(words, e.toLongArray());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuildOnce() {
+        WordIntIterable.Builder builder = WordIntIterable.newBuilder(10);
+        builder.build();
+        builder.add(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testBuilderOutOfBounds() {
+        WordIntIterable.newBuilder(10).add(5, 65);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaxValue() {
+        WordIntIterable.newBuilder(-1);
+    }
+}
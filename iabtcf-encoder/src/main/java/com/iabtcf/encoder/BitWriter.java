@@ -20,18 +20,21 @@ package com.iabtcf.encoder;
  * #L%
  */
 
+import java.io.IOException;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.Base64;
 import java.util.BitSet;
 import java.util.PrimitiveIterator.OfLong;
 
 import com.iabtcf.encoder.exceptions.ValueOverflowException;
+import com.iabtcf.utils.BitFieldIntIterable;
+import com.iabtcf.utils.BitSetIntIterable;
 import com.iabtcf.utils.FieldDefs;
 import com.iabtcf.utils.IntIterable;
-import com.iabtcf.utils.IntIterator;
+import com.iabtcf.utils.WordIntIterable;
 
 /**
  * Provides the ability to construct a byte array that is iabtcf compliant. The BitWriter provides
@@ -40,6 +43,11 @@ import com.iabtcf.utils.IntIterator;
 class BitWriter {
     private static final long[] LONG_MASKS = new long[Long.SIZE + 1];
 
+    static final char[] BASE64_URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private static final int SEXTET = 6;
+
     static {
         for (int i = 0; i < Long.SIZE; i++) {
             LONG_MASKS[i] = (1L << i) - 1;
@@ -125,25 +133,81 @@ class BitWriter {
             throw new IllegalArgumentException("length must be non-negative");
         }
 
-        BitWriter bw = new BitWriter(length);
-        BitSet bs = new BitSet();
-        for (IntIterator i = of.intIterator(); i.hasNext();) {
-            int nextInt = i.nextInt();
-            if (nextInt <= 0) {
-                throw new IndexOutOfBoundsException("invalid index: " + nextInt);
+        long[] values = toLongArray(of);
+        if (values != null) {
+            writeValueWords(values, length);
+            return;
+        }
+
+        // bit 'i - 1' is set for every index 'i', the first index of each word is its lowest bit
+        long[] words = new long[(length + Long.SIZE - 1) >>> 6];
+        of.forEachInt(i -> {
+            if (i <= 0) {
+                throw new IndexOutOfBoundsException("invalid index: " + i);
             }
 
-            if (nextInt > length) {
-                // we continue here, can't assume IntIterable is in sorted order
-                continue;
+            // we continue here, can't assume IntIterable is in sorted order
+            if (i <= length) {
+                words[(i - 1) >>> 6] |= 1L << (i - 1);
             }
+        });
 
-            bs.set(nextInt - 1);
+        writeWords(words, length);
+    }
+
+    /**
+     * Returns the values of the word backed IntIterables in the layout of {@link BitSet#toLongArray()},
+     * null for any other IntIterable.
+     */
+    private static long[] toLongArray(IntIterable of) {
+        if (of instanceof WordIntIterable) {
+            return ((WordIntIterable) of).toLongArray();
         }
-        for (int i = 0; i < length; i++) {
-            bw.write(bs.get(i));
+        if (of instanceof BitSetIntIterable) {
+            return ((BitSetIntIterable) of).toLongArray();
+        }
+        if (of instanceof BitFieldIntIterable) {
+            return ((BitFieldIntIterable) of).toLongArray();
+        }
+        return null;
+    }
+
+    /**
+     * Writes the bits for values 1 to 'length' of 'values', words laid out as by
+     * {@link BitSet#toLongArray()}. Each word is shifted down by one bit so that value 'i' becomes bit
+     * 'i - 1'.
+     *
+     * @throws IndexOutOfBoundsException if value 0 is set
+     */
+    private void writeValueWords(long[] values, int length) {
+        if (values.length > 0 && (values[0] & 1L) != 0) {
+            throw new IndexOutOfBoundsException("invalid index: 0");
+        }
+
+        long[] words = new long[(length + Long.SIZE - 1) >>> 6];
+        for (int i = 0; i < words.length && i < values.length; i++) {
+            long next = i + 1 < values.length ? values[i + 1] : 0;
+            words[i] = values[i] >>> 1 | next << (Long.SIZE - 1);
+        }
+        writeWords(words, length);
+    }
+
+    /**
+     * Writes the first 'length' bits of 'words', the lowest bit of each word first, as laid out by
+     * {@link BitSet#toLongArray()}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if 'words' holds fewer than 'length' bits
+     */
+    void writeWords(long[] words, int length) {
+        int fullWords = length >>> 6;
+        for (int i = 0; i < fullWords; i++) {
+            write(Long.reverse(words[i]), Long.SIZE);
+        }
+
+        int remaining = length & (Long.SIZE - 1);
+        if (remaining > 0) {
+            write(Long.reverse(words[fullWords]) >>> (Long.SIZE - remaining), remaining);
         }
-        write(bw);
     }
 
     /**
@@ -256,6 +320,105 @@ class BitWriter {
      * Returns a base64 url encoded representation of the bit array.
      */
     public String toBase64() {
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(this.toByteArray());
+        char[] chars = new char[base64Length()];
+        toBase64(chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Returns the number of characters of the unpadded base64 url encoded representation of the
+     * byte array.
+     */
+    public int base64Length() {
+        int bytes = (length() + (Byte.SIZE - 1)) >>> 3;
+        return (bytes * 4 + 2) / 3;
+    }
+
+    /**
+     * Writes the base64 url encoded representation of the byte array, without padding, to 'dst'
+     * starting at 'offset' and returns the offset following the last written character.
+     *
+     * @throws IndexOutOfBoundsException if 'dst' is too short
+     */
+    public int toBase64(char[] dst, int offset) {
+        int length = base64Length();
+        if (offset < 0 || offset > dst.length - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+        }
+
+        enforcePrecision();
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = BASE64_URL[sextet(i * SEXTET)];
+        }
+        return offset + length;
+    }
+
+    /**
+     * Appends the base64 url encoded representation of the byte array, without padding.
+     */
+    public StringBuilder appendBase64(StringBuilder sb) {
+        int length = base64Length();
+        sb.ensureCapacity(sb.length() + length);
+
+        enforcePrecision();
+        for (int i = 0; i < length; i++) {
+            sb.append(BASE64_URL[sextet(i * SEXTET)]);
+        }
+        return sb;
+    }
+
+    /**
+     * Appends the base64 url encoded representation of the byte array, without padding.
+     *
+     * @throws IOException if the Appendable fails
+     */
+    public Appendable appendBase64(Appendable out) throws IOException {
+        int length = base64Length();
+
+        enforcePrecision();
+        for (int i = 0; i < length; i++) {
+            out.append(BASE64_URL[sextet(i * SEXTET)]);
+        }
+        return out;
+    }
+
+    /**
+     * Puts the base64 url encoded representation of the byte array, without padding, as ASCII bytes
+     * at the buffer's position.
+     *
+     * @throws BufferOverflowException if fewer than base64Length() bytes remain, nothing is written
+     */
+    public ByteBuffer putBase64(ByteBuffer dst) {
+        int length = base64Length();
+        if (dst.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+
+        enforcePrecision();
+        for (int i = 0; i < length; i++) {
+            dst.put((byte) BASE64_URL[sextet(i * SEXTET)]);
+        }
+        return dst;
+    }
+
+    /**
+     * Returns the 6 bits starting at bit 'offset', bits past the written bits are zero.
+     */
+    private int sextet(int offset) {
+        int index = offset >>> 6;
+        int shift = offset & (Long.SIZE - 1);
+
+        long bits = word(index) << shift;
+        if (shift > Long.SIZE - SEXTET) {
+            bits |= word(index + 1) >>> (Long.SIZE - shift);
+        }
+        return (int) (bits >>> (Long.SIZE - SEXTET));
+    }
+
+    private long word(int index) {
+        if (index < buffer.size()) {
+            return buffer.get(index);
+        }
+        return index == buffer.size() ? pending : 0L;
     }
 }
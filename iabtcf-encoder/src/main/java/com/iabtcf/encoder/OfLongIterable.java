@@ -31,6 +31,13 @@ class OfLongIterable {
         return size;
     }
 
+    /**
+     * @throws ArrayIndexOutOfBoundsException if index is not less than the array length
+     */
+    public long get(int index) {
+        return array[index];
+    }
+
     public void add(long value) {
         if (size == array.length) {
             array = Arrays.copyOf(array, size * 2);
@@ -53,6 +53,10 @@ import static com.iabtcf.utils.FieldDefs.V1_PURPOSES_ALLOW;
 import static com.iabtcf.utils.FieldDefs.V1_VENDOR_LIST_VERSION;
 import static com.iabtcf.utils.FieldDefs.V1_VERSION;
 
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -60,8 +64,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.iabtcf.decoder.TCString;
 import com.iabtcf.encoder.exceptions.ValueOverflowException;
@@ -80,6 +82,31 @@ public interface TCStringEncoder {
      */
     String encode() throws IllegalArgumentException, ValueOverflowException;
 
+    /**
+     * Appends the base64 url encoded consent string to 'out' and returns 'out'.
+     *
+     * @throws IOException if the Appendable fails
+     * @throws IllegalArgumentException if the version is invalid
+     * @throws ValueOverflowException if an attempt was made to encode a value beyond it's limit.
+     */
+    default Appendable encode(Appendable out) throws IOException, IllegalArgumentException, ValueOverflowException {
+        return out.append(encode());
+    }
+
+    /**
+     * Puts the base64 url encoded consent string as ASCII bytes at the buffer's position and returns
+     * the buffer.
+     *
+     * @throws BufferOverflowException if the consent string does not fit the remaining bytes, nothing
+     *         is written
+     * @throws IllegalArgumentException if the version is invalid
+     * @throws ValueOverflowException if an attempt was made to encode a value beyond it's limit.
+     */
+    default ByteBuffer encode(ByteBuffer dst)
+            throws BufferOverflowException, IllegalArgumentException, ValueOverflowException {
+        return dst.put(encode().getBytes(StandardCharsets.US_ASCII));
+    }
+
     /**
      * Returns a TCString representation
      *
@@ -120,6 +147,20 @@ public interface TCStringEncoder {
 
         @Override
         public String encode() {
+            return encodeBits().toBase64();
+        }
+
+        @Override
+        public Appendable encode(Appendable out) throws IOException {
+            return encodeBits().appendBase64(out);
+        }
+
+        @Override
+        public ByteBuffer encode(ByteBuffer dst) {
+            return encodeBits().putBase64(dst);
+        }
+
+        private BitWriter encodeBits() {
             BitWriter bitWriter = new BitWriter();
             bitWriter.write(version, V1_VERSION);
             bitWriter.write(created, V1_CREATED);
@@ -131,14 +172,12 @@ public interface TCStringEncoder {
             bitWriter.write(vendorListVersion, V1_VENDOR_LIST_VERSION);
             bitWriter.write(purposesConsent, V1_PURPOSES_ALLOW);
 
-            BitWriter vendorConsentBits = new VendorFieldEncoder()
+            new VendorFieldEncoder()
                 .defaultConsent(defaultConsent)
                 .add(vendorsConsent)
-                .buildV1();
+                .writeToV1(bitWriter);
 
-            bitWriter.write(vendorConsentBits);
-
-            return bitWriter.toBase64();
+            return bitWriter;
         }
 
         @Override
@@ -224,7 +263,10 @@ public interface TCStringEncoder {
             publisherRestrictions = checkBounds(new ArrayList<>(builder.publisherRestrictions));
         }
 
-        private String encodeSegment(SegmentType segmentType) {
+        /**
+         * Returns the bits of a vendor segment or null if the segment is empty.
+         */
+        private BitWriter encodeSegment(SegmentType segmentType) {
             IntIterable intIterable = BitSetIntIterable.EMPTY;
 
             switch (segmentType) {
@@ -241,31 +283,31 @@ public interface TCStringEncoder {
             }
 
             if (intIterable.isEmpty()) {
-                return "";
+                return null;
             }
 
             BitWriter bitWriter = new BitWriter();
             bitWriter.write(segmentType.value(), OOB_SEGMENT_TYPE);
-            bitWriter.write(new VendorFieldEncoder().add(intIterable).build());
+            new VendorFieldEncoder().add(intIterable).writeTo(bitWriter);
 
-            return bitWriter.toBase64();
+            return bitWriter;
         }
 
         /**
          * Disclosed Vendors (OOB)
          */
-        private String encodeDisclosedVendors() {
+        private BitWriter encodeDisclosedVendors() {
             return encodeSegment(SegmentType.DISCLOSED_VENDOR);
         }
 
         /**
          * Allowed Vendors (OOB) segment
          */
-        private String encodeAllowedVendors() {
+        private BitWriter encodeAllowedVendors() {
             return encodeSegment(SegmentType.ALLOWED_VENDOR);
         }
 
-        private String encodeCoreString() {
+        private BitWriter encodeCoreString() {
             BitWriter bitWriter = new BitWriter();
             bitWriter.write(version, CORE_VERSION);
             bitWriter.write(created, CORE_CREATED);
@@ -283,8 +325,8 @@ public interface TCStringEncoder {
             bitWriter.write(purposesLITransparency, CORE_PURPOSES_LI_TRANSPARENCY);
             bitWriter.write(purposeOneTreatment, CORE_PURPOSE_ONE_TREATMENT);
             bitWriter.write(publisherCC, CORE_PUBLISHER_CC);
-            bitWriter.write(new VendorFieldEncoder().add(vendorsConsent).build());
-            bitWriter.write(new VendorFieldEncoder().add(vendorLegitimateInterest).build());
+            new VendorFieldEncoder().add(vendorsConsent).writeTo(bitWriter);
+            new VendorFieldEncoder().add(vendorLegitimateInterest).writeTo(bitWriter);
 
             bitWriter.write(publisherRestrictions.size(), FieldDefs.CORE_NUM_PUB_RESTRICTION);
 
@@ -296,18 +338,18 @@ public interface TCStringEncoder {
                     .emitMaxVendorId(false)
                     .emitIsRangeEncoding(false)
                     .add(pre.getVendors());
-                bitWriter.write(v.build());
+                v.writeTo(bitWriter);
             }
 
-            return bitWriter.toBase64();
+            return bitWriter;
         }
 
         /**
-         * Publisher Purposes Transparency and Consent segment
+         * Publisher Purposes Transparency and Consent segment, null if the segment is empty
          */
-        private String encodePPTC() {
+        private BitWriter encodePPTC() {
             if (pubPurposesConsent.isEmpty() && pubPurposesLITransparency.isEmpty() && numberOfCustomPurposes == 0) {
-                return "";
+                return null;
             }
 
             BitWriter bitWriter = new BitWriter();
@@ -318,15 +360,83 @@ public interface TCStringEncoder {
             bitWriter.write(customPurposesConsent, numberOfCustomPurposes);
             bitWriter.write(customPurposesLITransparency, numberOfCustomPurposes);
 
-            return bitWriter.toBase64();
+            return bitWriter;
         }
 
+        private BitWriter[] encodeSegments() {
+            return new BitWriter[] {encodeCoreString(), encodeDisclosedVendors(), encodeAllowedVendors(),
+                    encodePPTC()};
+        }
+
+        /**
+         * Returns the length of the consent string, the core segment is always present.
+         */
+        private static int length(BitWriter[] segments) {
+            int length = -1;
+            for (BitWriter segment : segments) {
+                if (segment != null) {
+                    length += segment.base64Length() + 1;
+                }
+            }
+            return length;
+        }
+
+        /**
+         * Encodes the segments straight into a single character array of the exact length.
+         */
         @Override
         public String encode() {
-            return Stream
-                .of(encodeCoreString(), encodeDisclosedVendors(), encodeAllowedVendors(), encodePPTC())
-                .filter(str -> str != null && !str.isEmpty())
-                .collect(Collectors.joining("."));
+            BitWriter[] segments = encodeSegments();
+
+            char[] chars = new char[length(segments)];
+            int offset = 0;
+            for (BitWriter segment : segments) {
+                if (segment == null) {
+                    continue;
+                }
+                if (offset > 0) {
+                    chars[offset++] = '.';
+                }
+                offset = segment.toBase64(chars, offset);
+            }
+            return new String(chars);
+        }
+
+        @Override
+        public Appendable encode(Appendable out) throws IOException {
+            boolean first = true;
+            for (BitWriter segment : encodeSegments()) {
+                if (segment == null) {
+                    continue;
+                }
+                if (!first) {
+                    out.append('.');
+                }
+                segment.appendBase64(out);
+                first = false;
+            }
+            return out;
+        }
+
+        @Override
+        public ByteBuffer encode(ByteBuffer dst) {
+            BitWriter[] segments = encodeSegments();
+            if (dst.remaining() < length(segments)) {
+                throw new BufferOverflowException();
+            }
+
+            boolean first = true;
+            for (BitWriter segment : segments) {
+                if (segment == null) {
+                    continue;
+                }
+                if (!first) {
+                    dst.put((byte) '.');
+                }
+                segment.putBase64(dst);
+                first = false;
+            }
+            return dst;
         }
 
         @Override
@@ -695,6 +805,24 @@ public interface TCStringEncoder {
             return new TCStringEncoderV2(this).encode();
         }
 
+        @Override
+        public Appendable encode(Appendable out) throws IOException {
+            if (this.version == 1) {
+                return new TCStringEncoderV1(this).encode(out);
+            }
+
+            return new TCStringEncoderV2(this).encode(out);
+        }
+
+        @Override
+        public ByteBuffer encode(ByteBuffer dst) {
+            if (this.version == 1) {
+                return new TCStringEncoderV1(this).encode(dst);
+            }
+
+            return new TCStringEncoderV2(this).encode(dst);
+        }
+
         @Override
         public TCString toTCString() {
             return TCString.decode(encode());
@@ -0,0 +1,382 @@
+package com.iabtcf.encoder;
+
+/*-
+ * #%L
+ * IAB TCF Java Encoder Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static com.iabtcf.utils.FieldDefs.CORE_CMP_ID;
+import static com.iabtcf.utils.FieldDefs.CORE_CMP_VERSION;
+import static com.iabtcf.utils.FieldDefs.CORE_CONSENT_SCREEN;
+import static com.iabtcf.utils.FieldDefs.CORE_CREATED;
+import static com.iabtcf.utils.FieldDefs.CORE_LAST_UPDATED;
+import static com.iabtcf.utils.FieldDefs.CORE_NUM_PUB_RESTRICTION;
+import static com.iabtcf.utils.FieldDefs.CORE_PUBLISHER_CC;
+import static com.iabtcf.utils.FieldDefs.CORE_PUB_RESTRICTION_ENTRY;
+import static com.iabtcf.utils.FieldDefs.CORE_PURPOSES_CONSENT;
+import static com.iabtcf.utils.FieldDefs.CORE_PURPOSES_LI_TRANSPARENCY;
+import static com.iabtcf.utils.FieldDefs.CORE_SPECIAL_FEATURE_OPT_INS;
+import static com.iabtcf.utils.FieldDefs.CORE_VENDOR_BITRANGE_FIELD;
+import static com.iabtcf.utils.FieldDefs.CORE_VENDOR_LIST_VERSION;
+import static com.iabtcf.utils.FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD;
+import static com.iabtcf.utils.FieldDefs.CORE_VENDOR_LI_MAX_VENDOR_ID;
+import static com.iabtcf.utils.FieldDefs.CORE_VENDOR_MAX_VENDOR_ID;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Objects;
+
+import com.iabtcf.decoder.Projection;
+import com.iabtcf.decoder.TCString;
+import com.iabtcf.encoder.exceptions.ValueOverflowException;
+import com.iabtcf.exceptions.ByteParseException;
+import com.iabtcf.utils.BitReader;
+import com.iabtcf.utils.BitSetIntIterable;
+import com.iabtcf.utils.CharSequenceBitReader;
+import com.iabtcf.utils.FieldDefs;
+import com.iabtcf.utils.IntIterable;
+
+/**
+ * Applies a set of changes to an existing v2 consent string without re-encoding it from scratch.
+ *
+ * Out-of-band segments are copied verbatim. Fixed length core fields are patched in place in the
+ * base64 characters of the core segment. Only a changed vendor section is decoded and re-encoded,
+ * the core segment is then rewritten with the sections preceding and following it copied word by
+ * word. As with {@link TCStringEncoder}, the created and last updated fields are both set to the
+ * last updated day, which defaults to the current day.
+ */
+public final class TCStringPatch {
+    private final String consentString;
+    private final int coreEnd;
+
+    private Instant updated = Instant.now(Clock.systemUTC());
+    private long cmpId = -1;
+    private long cmpVersion = -1;
+    private long consentScreen = -1;
+    private long vendorListVersion = -1;
+    private final BitPatch specialFeatureOptIns = new BitPatch(CORE_SPECIAL_FEATURE_OPT_INS);
+    private final BitPatch purposesConsent = new BitPatch(CORE_PURPOSES_CONSENT);
+    private final BitPatch purposesLITransparency = new BitPatch(CORE_PURPOSES_LI_TRANSPARENCY);
+    private final VendorPatch vendorConsent = new VendorPatch();
+    private final VendorPatch vendorLegitimateInterest = new VendorPatch();
+
+    private TCStringPatch(String consentString) {
+        this.consentString = consentString;
+
+        int end = consentString.indexOf('.');
+        this.coreEnd = end < 0 ? consentString.length() : end;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the consent string is not a v2 string
+     * @throws ByteParseException if the core segment ends before its fixed length fields
+     */
+    public static TCStringPatch of(String consentString) throws IllegalArgumentException, ByteParseException {
+        TCStringPatch patch = new TCStringPatch(consentString);
+        BitReader bbv = patch.coreReader();
+        int version = bbv.readBits6(FieldDefs.CORE_VERSION);
+        if (version != 2) {
+            throw new IllegalArgumentException("only v2 strings can be patched: " + version);
+        }
+
+        // the last fixed length field, every patched field precedes it
+        bbv.readBits(CORE_PUBLISHER_CC.getOffset(), CORE_PUBLISHER_CC.getLength());
+        return patch;
+    }
+
+    /**
+     * In V2, the encoded value will be rounded to the day.
+     */
+    public TCStringPatch lastUpdated(Instant updated) {
+        this.updated = Objects.requireNonNull(updated);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException
+     */
+    public TCStringPatch cmpId(int cmpId) {
+        this.cmpId = Bounds.checkBounds(cmpId, CORE_CMP_ID);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException
+     */
+    public TCStringPatch cmpVersion(int cmpVersion) {
+        this.cmpVersion = Bounds.checkBounds(cmpVersion, CORE_CMP_VERSION);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException
+     */
+    public TCStringPatch consentScreen(int consentScreen) {
+        this.consentScreen = Bounds.checkBounds(consentScreen, CORE_CONSENT_SCREEN);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException
+     */
+    public TCStringPatch vendorListVersion(int vendorListVersion) {
+        this.vendorListVersion = Bounds.checkBounds(vendorListVersion, CORE_VENDOR_LIST_VERSION);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid special feature
+     */
+    public TCStringPatch addSpecialFeatureOptIns(int specialFeatureOptIn) {
+        specialFeatureOptIns.set(specialFeatureOptIn, true);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid special feature
+     */
+    public TCStringPatch removeSpecialFeatureOptIns(int specialFeatureOptIn) {
+        specialFeatureOptIns.set(specialFeatureOptIn, false);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid purpose
+     */
+    public TCStringPatch addPurposesConsent(int purposeId) {
+        purposesConsent.set(purposeId, true);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid purpose
+     */
+    public TCStringPatch removePurposesConsent(int purposeId) {
+        purposesConsent.set(purposeId, false);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid purpose
+     */
+    public TCStringPatch addPurposesLITransparency(int purposeId) {
+        purposesLITransparency.set(purposeId, true);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid purpose
+     */
+    public TCStringPatch removePurposesLITransparency(int purposeId) {
+        purposesLITransparency.set(purposeId, false);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid vendor id
+     */
+    public TCStringPatch addVendorConsent(int vendorId) {
+        vendorConsent.set(vendorId, true);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid vendor id
+     */
+    public TCStringPatch removeVendorConsent(int vendorId) {
+        vendorConsent.set(vendorId, false);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid vendor id
+     */
+    public TCStringPatch addVendorLegitimateInterest(int vendorId) {
+        vendorLegitimateInterest.set(vendorId, true);
+        return this;
+    }
+
+    /**
+     * @throws ValueOverflowException if the id is not a valid vendor id
+     */
+    public TCStringPatch removeVendorLegitimateInterest(int vendorId) {
+        vendorLegitimateInterest.set(vendorId, false);
+        return this;
+    }
+
+    /**
+     * Returns the patched consent string.
+     *
+     * @throws ByteParseException if a vendor section of the core segment is truncated
+     */
+    public String encode() throws ByteParseException {
+        char[] core = vendorConsent.isEmpty() && vendorLegitimateInterest.isEmpty()
+                ? consentString.substring(0, coreEnd).toCharArray()
+                : rewriteCore();
+
+        long deciseconds = updated.truncatedTo(ChronoUnit.DAYS).toEpochMilli() / 100;
+        patch(core, CORE_CREATED, deciseconds);
+        patch(core, CORE_LAST_UPDATED, deciseconds);
+        patch(core, CORE_CMP_ID, cmpId);
+        patch(core, CORE_CMP_VERSION, cmpVersion);
+        patch(core, CORE_CONSENT_SCREEN, consentScreen);
+        patch(core, CORE_VENDOR_LIST_VERSION, vendorListVersion);
+        specialFeatureOptIns.apply(core);
+        purposesConsent.apply(core);
+        purposesLITransparency.apply(core);
+
+        return new StringBuilder(core.length + consentString.length() - coreEnd)
+                .append(core)
+                .append(consentString, coreEnd, consentString.length())
+                .toString();
+    }
+
+    private BitReader coreReader() {
+        return new CharSequenceBitReader(consentString, 0, coreEnd);
+    }
+
+    /**
+     * Re-encodes the changed vendor sections and copies the remaining bits of the core segment.
+     */
+    private char[] rewriteCore() {
+        BitReader bbv = coreReader();
+        int vendorStart = CORE_VENDOR_MAX_VENDOR_ID.getOffset(bbv);
+        int vendorEnd = CORE_VENDOR_BITRANGE_FIELD.getEnd(bbv);
+        int vendorLIStart = CORE_VENDOR_LI_MAX_VENDOR_ID.getOffset(bbv);
+        int vendorLIEnd = CORE_VENDOR_LI_BITRANGE_FIELD.getEnd(bbv);
+        // the restrictions length includes the restrictions count
+        int end = CORE_NUM_PUB_RESTRICTION.getOffset(bbv) + CORE_PUB_RESTRICTION_ENTRY.getLength(bbv);
+
+        TCString tcString = TCString.decode(consentString,
+                Projection.of(CORE_VENDOR_BITRANGE_FIELD, CORE_VENDOR_LI_BITRANGE_FIELD));
+
+        BitWriter bw = new BitWriter();
+        copy(bbv, 0, vendorStart, bw);
+        if (vendorConsent.isEmpty()) {
+            copy(bbv, vendorStart, vendorEnd, bw);
+        } else {
+            vendorConsent.writeTo(tcString.getVendorConsent(), bw);
+        }
+        if (vendorLegitimateInterest.isEmpty()) {
+            copy(bbv, vendorLIStart, vendorLIEnd, bw);
+        } else {
+            vendorLegitimateInterest.writeTo(tcString.getVendorLegitimateInterest(), bw);
+        }
+        copy(bbv, vendorLIEnd, end, bw);
+
+        char[] core = new char[bw.base64Length()];
+        bw.toBase64(core, 0);
+        return core;
+    }
+
+    /**
+     * Copies the bits from 'start' inclusive to 'end' exclusive a word at a time.
+     */
+    private static void copy(BitReader bbv, int start, int end, BitWriter bw) {
+        for (int offset = start; offset < end; offset += Long.SIZE) {
+            int length = Math.min(Long.SIZE, end - offset);
+            bw.write(bbv.readBits(offset, length), length);
+        }
+    }
+
+    /**
+     * Overwrites the bits of a fixed offset field with 'value' unless it's negative.
+     */
+    private static void patch(char[] chars, FieldDefs field, long value) {
+        if (value < 0) {
+            return;
+        }
+
+        int offset = field.getOffset();
+        int length = field.getLength();
+        for (int i = 0; i < length; i++) {
+            setBit(chars, offset + i, ((value >>> (length - 1 - i)) & 1) != 0);
+        }
+    }
+
+    private static void setBit(char[] chars, int offset, boolean value) {
+        int index = offset / 6;
+        int mask = 1 << (5 - offset % 6);
+        int sextet = CharSequenceBitReader.valueOf(chars[index]);
+        chars[index] = BitWriter.BASE64_URL[value ? sextet | mask : sextet & ~mask];
+    }
+
+    /**
+     * The ids set or cleared in a fixed length bitfield.
+     */
+    private static final class BitPatch {
+        private final FieldDefs field;
+        private long set;
+        private long clear;
+
+        BitPatch(FieldDefs field) {
+            this.field = field;
+        }
+
+        void set(int id, boolean value) {
+            if (id <= 0 || id > field.getLength()) {
+                throw new ValueOverflowException(id, field.getLength(), field);
+            }
+
+            long bit = 1L << (id - 1);
+            set = value ? set | bit : set & ~bit;
+            clear = value ? clear & ~bit : clear | bit;
+        }
+
+        void apply(char[] chars) {
+            int offset = field.getOffset();
+            for (long bits = set | clear; bits != 0; bits &= bits - 1) {
+                int i = Long.numberOfTrailingZeros(bits);
+                setBit(chars, offset + i, (set & (1L << i)) != 0);
+            }
+        }
+    }
+
+    /**
+     * The vendor ids added to or removed from a vendor section.
+     */
+    private static final class VendorPatch {
+        private final BitSet set = new BitSet();
+        private final BitSet clear = new BitSet();
+
+        void set(int vendorId, boolean value) {
+            Bounds.checkBounds(vendorId, CORE_VENDOR_MAX_VENDOR_ID);
+            if (vendorId <= 0) {
+                throw new ValueOverflowException(vendorId, CORE_VENDOR_MAX_VENDOR_ID);
+            }
+
+            (value ? set : clear).set(vendorId);
+            (value ? clear : set).clear(vendorId);
+        }
+
+        boolean isEmpty() {
+            return set.isEmpty() && clear.isEmpty();
+        }
+
+        void writeTo(IntIterable vendorIds, BitWriter bw) {
+            BitSet vendors = new BitSet();
+            vendorIds.forEachInt(vendors::set);
+            vendors.or(set);
+            vendors.andNot(clear);
+
+            new VendorFieldEncoder().add(BitSetIntIterable.from(vendors)).writeTo(bw);
+        }
+    }
+}
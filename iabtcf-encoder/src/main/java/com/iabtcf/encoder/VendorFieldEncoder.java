@@ -145,7 +145,9 @@ class VendorFieldEncoder {
     }
 
     public BitWriter buildV1() {
-        return build(true);
+        BitWriter bv = new BitWriter();
+        writeTo(bv, true);
+        return bv;
     }
 
     /**
@@ -153,47 +155,41 @@ class VendorFieldEncoder {
      * bit field or a range encoding; depending on which is smaller.
      */
     public BitWriter build() {
-        return build(false);
+        BitWriter bv = new BitWriter();
+        writeTo(bv, false);
+        return bv;
     }
 
-    private BitWriter build(boolean emitDefaultConsent) {
-        BitWriter bv = new BitWriter();
+    /**
+     * Writes the encoded vendor ids, as returned by {@link #build()}, straight to 'bv'.
+     */
+    public void writeTo(BitWriter bv) {
+        writeTo(bv, false);
+    }
+
+    /**
+     * Writes the encoded vendor ids, as returned by {@link #buildV1()}, straight to 'bv'.
+     */
+    public void writeToV1(BitWriter bv) {
+        writeTo(bv, true);
+    }
 
+    private void writeTo(BitWriter bv, boolean emitDefaultConsent) {
         if (vendors.length() == 0) {
             bv.writeV(0, FieldDefs.CORE_VENDOR_MAX_VENDOR_ID);
             bv.write(false, FieldDefs.CORE_VENDOR_IS_RANGE_ENCODING);
-            return bv;
+            return;
         }
 
         maxVendorId = Math.max(vendors.length(), maxVendorId);
 
-        // create the range bit section
-        BitWriter rangeBits = new BitWriter();
-        int idxSet = vendors.get(0) ? 0 : vendors.nextSetBit(0);
-        int idxClr;
-        int numEntries = 0;
-        do {
-            idxClr = vendors.nextClearBit(idxSet);
-            int length = idxClr - idxSet;
-
-            if (length == 1) {
-                rangeBits.write(false, FieldDefs.CORE_VENDOR_IS_RANGE_ENCODING);
-                rangeBits.writeV(idxSet + 1, FieldDefs.START_OR_ONLY_VENDOR_ID);
-            } else {
-                rangeBits.write(true, FieldDefs.CORE_VENDOR_IS_RANGE_ENCODING);
-                rangeBits.writeV(idxSet + 1, FieldDefs.START_OR_ONLY_VENDOR_ID);
-                rangeBits.writeV(idxClr, FieldDefs.END_VENDOR_ID);
-            }
-            numEntries++;
-        } while ((idxSet = vendors.nextSetBit(idxClr)) > 0
-                && (rangeBits.length() < vendors.length() || emitRangeEncoding));
-
         // emit max vendor id
         if (emitMaxVendorId) {
             bv.writeV(maxVendorId, FieldDefs.CORE_VENDOR_MAX_VENDOR_ID);
         }
 
-        if (rangeBits.length() < vendors.length() || emitRangeEncoding) {
+        int numEntries = countRangeEntries();
+        if (numEntries > 0) {
             // emit range bits
 
             // don't emit IS_A_RANGE when we forced a range encoding
@@ -204,24 +200,52 @@ class VendorFieldEncoder {
                 bv.write(defaultConsent, FieldDefs.V1_VENDOR_DEFAULT_CONSENT);
             }
             bv.writeV(numEntries, FieldDefs.NUM_ENTRIES);
-            bv.write(rangeBits);
+            writeRangeEntries(bv);
         } else {
             // emit bit field
             bv.write(false, FieldDefs.IS_A_RANGE);
+            bv.writeWords(vendors.toLongArray(), vendors.length());
+            bv.enforcePrecision(maxVendorId - vendors.length());
+        }
+    }
 
-            int rem = vendors.length() % Long.SIZE;
-            if (rem == 0) {
-                rem = Long.SIZE;
-            }
+    /**
+     * Computes the cost of the range entries, without writing them, and returns their number if the
+     * range encoding is to be emitted or 0 if the bit field encoding is smaller.
+     */
+    private int countRangeEntries() {
+        int bitFieldLength = vendors.length();
+        int singleLength = FieldDefs.IS_A_RANGE.getLength() + FieldDefs.START_OR_ONLY_VENDOR_ID.getLength();
+        int rangeLength = singleLength + FieldDefs.END_VENDOR_ID.getLength();
+
+        int length = 0;
+        int numEntries = 0;
+        for (int idxSet = vendors.nextSetBit(0); idxSet >= 0; idxSet = vendors.nextSetBit(idxSet)) {
+            int idxClr = vendors.nextClearBit(idxSet);
+            length += idxClr - idxSet == 1 ? singleLength : rangeLength;
+            numEntries++;
 
-            long[] bits = vendors.toLongArray();
-            for (int i = 0; i < bits.length - 1; i++) {
-                bv.write(Long.reverse(bits[i]), Long.SIZE);
+            if (length >= bitFieldLength && !emitRangeEncoding) {
+                return 0;
             }
-            bv.write(Long.reverse(bits[bits.length - 1]) >>> (Long.SIZE - rem), rem);
-            bv.enforcePrecision(maxVendorId - vendors.length());
+            idxSet = idxClr;
         }
+        return numEntries;
+    }
 
-        return bv;
+    private void writeRangeEntries(BitWriter bv) {
+        for (int idxSet = vendors.nextSetBit(0); idxSet >= 0; idxSet = vendors.nextSetBit(idxSet)) {
+            int idxClr = vendors.nextClearBit(idxSet);
+
+            if (idxClr - idxSet == 1) {
+                bv.write(false, FieldDefs.IS_A_RANGE);
+                bv.writeV(idxSet + 1, FieldDefs.START_OR_ONLY_VENDOR_ID);
+            } else {
+                bv.write(true, FieldDefs.IS_A_RANGE);
+                bv.writeV(idxSet + 1, FieldDefs.START_OR_ONLY_VENDOR_ID);
+                bv.writeV(idxClr, FieldDefs.END_VENDOR_ID);
+            }
+            idxSet = idxClr;
+        }
     }
 }
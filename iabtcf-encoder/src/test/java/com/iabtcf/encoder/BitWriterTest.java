@@ -27,17 +27,32 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
 import com.iabtcf.decoder.DecoderOption;
 import com.iabtcf.decoder.TCString;
 import com.iabtcf.encoder.exceptions.ValueOverflowException;
+import com.iabtcf.utils.BitFieldIntIterable;
 import com.iabtcf.utils.BitReader;
 import com.iabtcf.utils.BitSetIntIterable;
 import com.iabtcf.utils.FieldDefs;
+import com.iabtcf.utils.IntIterable;
+import com.iabtcf.utils.RangeIntIterable;
+import com.iabtcf.utils.WordIntIterable;
 
 public class BitWriterTest {
     @Test
@@ -472,4 +487,99 @@ public class BitWriterTest {
         BitWriter bw = new BitWriter(128);
         bw.writeV(64, FieldDefs.CHAR);
     }
+
+    @Test
+    public void testBase64() throws IOException {
+        Random random = new Random(42);
+        for (int n = 0; n < 200; n++) {
+            BitWriter bw = new BitWriter(random.nextInt(3) == 0 ? random.nextInt(200) : 0);
+            int fields = random.nextInt(20);
+            for (int i = 0; i < fields; i++) {
+                bw.write(random.nextLong(), 1 + random.nextInt(Long.SIZE));
+            }
+
+            String expected = Base64.getUrlEncoder().withoutPadding().encodeToString(bw.toByteArray());
+            assertEquals(expected.length(), bw.base64Length());
+            assertEquals(expected, bw.toBase64());
+            assertEquals("x" + expected, bw.appendBase64(new StringBuilder("x")).toString());
+            assertEquals(expected, bw.appendBase64((Appendable) new StringWriter()).toString());
+
+            char[] chars = new char[expected.length() + 2];
+            assertEquals(expected.length() + 1, bw.toBase64(chars, 1));
+            assertEquals(expected, new String(chars, 1, expected.length()));
+
+            ByteBuffer buffer = ByteBuffer.allocate(expected.length() + 1);
+            buffer.put((byte) 'x');
+            bw.putBase64(buffer);
+            assertEquals("x" + expected, new String(buffer.array(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testBase64TooShort() {
+        BitWriter bw = new BitWriter();
+        bw.write(1, 12);
+        bw.toBase64(new char[2], 1);
+    }
+
+    @Test
+    public void testPutBase64Overflow() {
+        BitWriter bw = new BitWriter();
+        bw.write(1, 12);
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        try {
+            bw.putBase64(buffer);
+            fail();
+        } catch (BufferOverflowException e) {
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    @Test
+    public void testWriteIntIterableUnaligned() {
+        Random random = new Random(7);
+        for (int n = 0; n < 100; n++) {
+            int prefix = random.nextInt(Long.SIZE);
+            int length = random.nextInt(300);
+            BitSet bits = new BitSet();
+            for (int i = random.nextInt(length + 1); i > 0; i--) {
+                bits.set(1 + random.nextInt(length + 10));
+            }
+
+            BitWriter expected = new BitWriter();
+            expected.write(0, prefix);
+            for (int i = 1; i <= length; i++) {
+                expected.write(bits.get(i));
+            }
+
+            BitWriter field = new BitWriter();
+            for (int i = 1; i <= length + 10; i++) {
+                field.write(bits.get(i));
+            }
+            RangeIntIterable.Builder ranges = RangeIntIterable.newBuilder(0);
+            bits.stream().forEach(ranges::add);
+
+            // the word backed sets are written a word at a time, other sets a value at a time
+            List<IntIterable> sets = Arrays.asList(BitSetIntIterable.from(bits), WordIntIterable.from(bits),
+                    BitFieldIntIterable.of(new BitReader(field.toByteArray()), 0, length + 10), ranges.build());
+            for (IntIterable set : sets) {
+                BitWriter actual = new BitWriter();
+                actual.write(0, prefix);
+                actual.write(set, length);
+
+                assertEquals(expected.length(), actual.length());
+                assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testWriteIntIterableInvalidIndex() {
+        new BitWriter().write(BitSetIntIterable.from(0, 3), 8);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testWriteIntIterableInvalidIndexSlowPath() {
+        new BitWriter().write(RangeIntIterable.newBuilder(0).add(0, 4).build(), 8);
+    }
 }
@@ -0,0 +1,171 @@
+package com.iabtcf.encoder;
+
+/*-
+ * #%L
+ * IAB TCF Java Encoder Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.Test;
+
+import com.iabtcf.decoder.TCString;
+import com.iabtcf.encoder.exceptions.ValueOverflowException;
+import com.iabtcf.exceptions.ByteParseException;
+
+public class TCStringPatchTest {
+    // range encoded vendors
+    private static final String RANGE = "COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA";
+
+    // bitfield encoded vendors with a disclosed vendors segment
+    private static final String CORE = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA";
+    private static final String DISCLOSED_VENDORS = ".IFoEUQQgAIQwgIwQABAEAAAAOIAACAIAAAAQAIAgEAACEAAAAAgAQBAAAAAAAGBAAgAAAAAAAFAAEC"
+            + "AAAgAAQARAEQAAAAAJAAIAAgAAAYQEAAAQmAgBC3ZAYzUw";
+
+    private final Instant updated = Instant.parse("2020-06-01T10:00:00Z");
+
+    private static TCStringEncoder.Builder reencode(String consentString, Instant updated) {
+        return TCStringEncoder.newBuilder(TCString.decode(consentString))
+                .created(updated.truncatedTo(ChronoUnit.DAYS))
+                .lastUpdated(updated.truncatedTo(ChronoUnit.DAYS));
+    }
+
+    @Test
+    public void testFixedFields() {
+        String patched = TCStringPatch.of(CORE + DISCLOSED_VENDORS)
+                .lastUpdated(updated)
+                .cmpId(300)
+                .cmpVersion(7)
+                .consentScreen(3)
+                .vendorListVersion(42)
+                .addPurposesConsent(24)
+                .removePurposesConsent(1)
+                .addPurposesLITransparency(2)
+                .addSpecialFeatureOptIns(12)
+                .encode();
+
+        TCString original = TCString.decode(CORE);
+        TCStringEncoder.Builder expected = reencode(CORE + DISCLOSED_VENDORS, updated)
+                .cmpId(300)
+                .cmpVersion(7)
+                .consentScreen(3)
+                .vendorListVersion(42)
+                .clearPurposesConsent()
+                .addPurposesConsent(original.getPurposesConsent())
+                .addPurposesConsent(24)
+                .addPurposesLITransparency(2)
+                .addSpecialFeatureOptIns(12);
+
+        assertEquals(CORE.length() + DISCLOSED_VENDORS.length(), patched.length());
+        assertTrue(patched.endsWith(DISCLOSED_VENDORS));
+        TCString decoded = TCString.decode(patched);
+        assertEquals(TCString.decode(expected.encode()), decoded);
+        assertTrue(decoded.getPurposesConsent().contains(24));
+        assertFalse(decoded.getPurposesConsent().contains(1));
+    }
+
+    @Test
+    public void testVendorConsent() {
+        TCString original = TCString.decode(RANGE);
+        int removed = original.getVendorConsent().intIterator().next();
+        String patched = TCStringPatch.of(RANGE)
+                .lastUpdated(updated)
+                .addVendorConsent(1000)
+                .removeVendorConsent(removed)
+                .encode();
+
+        TCStringEncoder.Builder expected = reencode(RANGE, updated)
+                .clearVendorConsent()
+                .addVendorConsent(1000);
+        original.getVendorConsent().forEachInt(id -> {
+            if (id != removed) {
+                expected.addVendorConsent(id);
+            }
+        });
+
+        TCString decoded = TCString.decode(patched);
+        assertEquals(original.getPublisherRestrictions(), decoded.getPublisherRestrictions());
+        assertEquals(original.getVendorLegitimateInterest(), decoded.getVendorLegitimateInterest());
+        assertTrue(decoded.getVendorConsent().contains(1000));
+        assertFalse(decoded.getVendorConsent().contains(removed));
+        assertEquals(original.getVendorConsent().toSet().size(), decoded.getVendorConsent().toSet().size());
+        assertEquals(TCString.decode(expected.encode()), decoded);
+    }
+
+    @Test
+    public void testVendorLegitimateInterest() {
+        String patched = TCStringPatch.of(CORE + DISCLOSED_VENDORS)
+                .lastUpdated(updated)
+                .addVendorLegitimateInterest(5)
+                .addVendorLegitimateInterest(700)
+                .removeVendorLegitimateInterest(5)
+                .encode();
+
+        TCString original = TCString.decode(CORE + DISCLOSED_VENDORS);
+        TCStringEncoder.Builder expected = reencode(CORE + DISCLOSED_VENDORS, updated)
+                .addVendorLegitimateInterest(700);
+
+        assertTrue(patched.endsWith(DISCLOSED_VENDORS));
+        TCString decoded = TCString.decode(patched);
+        assertEquals(TCString.decode(expected.encode()), decoded);
+        assertEquals(original.getVendorConsent(), decoded.getVendorConsent());
+    }
+
+    @Test
+    public void testUnchanged() {
+        String patched = TCStringPatch.of(RANGE).lastUpdated(updated).encode();
+        assertEquals(patched, TCStringPatch.of(patched).lastUpdated(updated).encode());
+        assertEquals(TCString.decode(reencode(RANGE, updated).encode()), TCString.decode(patched));
+    }
+
+    @Test(expected = ValueOverflowException.class)
+    public void testInvalidPurpose() {
+        TCStringPatch.of(CORE).addPurposesConsent(25);
+    }
+
+    @Test(expected = ValueOverflowException.class)
+    public void testInvalidVendor() {
+        TCStringPatch.of(CORE).addVendorConsent(0);
+    }
+
+    @Test(expected = ByteParseException.class)
+    public void testTruncated() {
+        TCStringPatch.of("CO").cmpId(1).encode();
+    }
+
+    @Test(expected = ByteParseException.class)
+    public void testTruncatedBeforePublisherCC() {
+        TCStringPatch.of(CORE.substring(0, 35));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullLastUpdated() {
+        TCStringPatch.of(CORE).lastUpdated(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testV1() {
+        TCStringPatch.of("BObdrPUOevsguAfDqFENCNAAAAAmeAAA.PVAfDObdrA.DqFENCAmeAENCDA");
+    }
+}
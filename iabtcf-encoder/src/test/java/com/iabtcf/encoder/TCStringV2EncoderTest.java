@@ -5,6 +5,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /*-
  * #%L
@@ -26,6 +27,11 @@ import static org.junit.Assert.assertTrue;
  * #L%
  */
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -461,4 +467,39 @@ public class TCStringV2EncoderTest {
             .addAllowedVendors(400);
         assertNotEquals(tcStr, b.toTCString());
     }
+
+    @Test
+    public void testEncodeAppendable() throws IOException {
+        encoderBuilder.addDisclosedVendors(3).addAllowedVendors(5).addPubPurposesConsent(2);
+        String expected = encoderBuilder.encode();
+        assertEquals(4, expected.split("\\.").length);
+
+        assertEquals("x" + expected, encoderBuilder.encode(new StringBuilder("x")).toString());
+        assertEquals(expected, encoderBuilder.encode((Appendable) new StringWriter()).toString());
+    }
+
+    @Test
+    public void testEncodeByteBuffer() {
+        encoderBuilder.addAllowedVendors(3);
+        String expected = encoderBuilder.encode();
+
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length() + 1);
+        buffer.put((byte) 'x');
+        encoderBuilder.encode(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals("x" + expected, new String(buffer.array(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testEncodeByteBufferOverflow() {
+        String expected = encoderBuilder.addDisclosedVendors(3).encode();
+
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length() - 1);
+        try {
+            encoderBuilder.encode(buffer);
+            fail();
+        } catch (BufferOverflowException e) {
+            assertEquals(0, buffer.position());
+        }
+    }
 }
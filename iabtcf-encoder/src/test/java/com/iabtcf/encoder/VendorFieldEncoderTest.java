@@ -330,4 +330,33 @@ public class VendorFieldEncoderTest {
         assertEquals(0, j); // max vendor id
         assertEquals(false, br.readBits1(16)); // is a range
     }
+
+    @Test
+    public void testWriteToMatchesBuild() {
+        for (int i = 0; i < 200; i++) {
+            VendorFieldEncoder bfe = new VendorFieldEncoder()
+                .emitRangeEncoding(i % 3 == 0)
+                .add(randomArray(RAND.nextInt(40) + 1, 300));
+
+            BitWriter expected = new BitWriter();
+            expected.write(5, 3);
+            expected.write(bfe.build());
+
+            BitWriter actual = new BitWriter();
+            actual.write(5, 3);
+            bfe.writeTo(actual);
+
+            assertEquals(expected.toBase64(), actual.toBase64());
+        }
+    }
+
+    @Test
+    public void testEqualCostUsesBitField() {
+        // a single range entry costs 33 bits, as does the bit field of vendors 32 and 33
+        BitWriter bw = new VendorFieldEncoder().add(32, 33).build();
+        BitReader br = new BitReader(bw.toByteArray());
+        assertEquals(33, br.readBits16(0));
+        assertFalse(br.readBits1(16));
+        assertEquals(16 + 1 + 33, bw.length());
+    }
 }